@@ -0,0 +1,79 @@
+package com.cipsoft.candidate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scalar and vector kernels on the same tour: longest stage over all stations
+ * and the distances of all days from their overnights
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DistanceKernelsBenchmark {
+
+    @Param({"10000000"})
+    public int stages;
+
+    @Param({"10000", "1000000"})
+    public int days;
+
+    private long[] overnights;
+    private int[] stations;
+    private long[] distances;
+    private DistanceKernels scalar;
+    private DistanceKernels vector;
+
+    @Setup
+    public void generate() {
+        int[] stageDistances = new TourGenerator(TourGenerator.Distribution.UNIFORM, 4711).generate(stages);
+        overnights = new long[stages + 1];
+        for (int i = 0; i < stages; i++) {
+            overnights[i + 1] = overnights[i] + stageDistances[i];
+        }
+        // evenly distributed overnights
+        stations = new int[days + 1];
+        for (int day = 0; day <= days; day++) {
+            stations[day] = (int) ((long) day * stages / days);
+        }
+        distances = new long[days + 1];
+        scalar = new ScalarDistanceKernels();
+        vector = new VectorDistanceKernels();
+    }
+
+    @Benchmark
+    public long scalarLongestStage() {
+        return scalar.longestStage(overnights);
+    }
+
+    @Benchmark
+    public long vectorLongestStage() {
+        return vector.longestStage(overnights);
+    }
+
+    @Benchmark
+    public long[] scalarDistances() {
+        scalar.distances(overnights, stations, distances);
+        return distances;
+    }
+
+    @Benchmark
+    public long[] vectorDistances() {
+        vector.distances(overnights, stations, distances);
+        return distances;
+    }
+}
@@ -0,0 +1,47 @@
+package com.cipsoft.candidate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Optimization of a first guess by the solvers.
+ * Every invocation starts from a fresh first guess, which is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    private TrackPlan trackPlan;
+
+    @Setup(Level.Invocation)
+    public void firstGuess(TourState tour) {
+        trackPlan = new ArrayTrackPlan(tour.distances, tour.days);
+    }
+
+    @Benchmark
+    public long heuristic() {
+        new HeuristicSolver().solve(trackPlan);
+        return trackPlan.getLongestDailyTrack();
+    }
+
+    @Benchmark
+    public long exact() {
+        new ExactSolver().solve(trackPlan);
+        return trackPlan.getLongestDailyTrack();
+    }
+}
@@ -0,0 +1,80 @@
+package com.cipsoft.candidate;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of the parallel prefix sums and feasibility checks with the number of threads,
+ * compared with the sequential check; gives ParallelExactSolver.MIN_PARALLEL_STAGES, e.g. with
+ * -p stages=1000,10000,100000,1000000,10000000
+ * Huge tours need a large heap, e.g. -p stages=100000000 -jvmArgs -Xmx4g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelBenchmark {
+
+    @Param({"10000000"})
+    public int stages;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private int[] distances;
+    private int days;
+    private PrefixSums overnights;
+    private long maxDistance;
+    private ForkJoinPool pool;
+    private ParallelExactSolver solver;
+
+    @Setup
+    public void generate() {
+        distances = new TourGenerator(TourGenerator.Distribution.UNIFORM, 4711).generate(stages);
+        days = stages / 100;
+        overnights = new ArrayPrefixSums(distances);
+        maxDistance = ExactSolver.findLongestDailyTrack(overnights, days);
+        pool = new ForkJoinPool(threads);
+        solver = new ParallelExactSolver(pool);
+    }
+
+    @TearDown
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public PrefixSums prefixSums() {
+        return new ArrayPrefixSums(distances, pool);
+    }
+
+    @Benchmark
+    public boolean sequentialFeasibility() {
+        return ExactSolver.isFeasible(overnights, days, maxDistance);
+    }
+
+    @Benchmark
+    public boolean feasibility() {
+        return solver.isFeasibleChunked(overnights, days, maxDistance);
+    }
+
+    @Benchmark
+    public long longestDailyTrack() {
+        return solver.bisectLongestDailyTrack(overnights, days);
+    }
+}
@@ -0,0 +1,61 @@
+package com.cipsoft.candidate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a tour file with FileParser (Scanner), MappedFileParser and BinaryTourFile
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    private File textFile;
+    private File binaryFile;
+
+    @Setup
+    public void writeFiles(TourState tour) throws IOException {
+        textFile = File.createTempFile("tour", ".txt");
+        binaryFile = File.createTempFile("tour", BinaryTourFile.EXTENSION);
+        TourGenerator.write(textFile.getPath(), tour.distances, tour.days);
+        BinaryTourFile.write(binaryFile.getPath(), tour.distances, tour.days, false, true);
+    }
+
+    @TearDown
+    public void deleteFiles() {
+        textFile.delete();
+        binaryFile.delete();
+    }
+
+    @Benchmark
+    public int[] scanner() {
+        return new FileParser(textFile.getPath()).availableOvernightDistances;
+    }
+
+    @Benchmark
+    public int[] mapped() {
+        return new MappedFileParser(textFile.getPath()).availableOvernightDistances;
+    }
+
+    @Benchmark
+    public PrefixSums binary() throws IOException {
+        return new BinaryTourFile(binaryFile.getPath()).getPrefixSums(false);
+    }
+}
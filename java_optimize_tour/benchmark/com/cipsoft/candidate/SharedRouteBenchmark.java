@@ -0,0 +1,79 @@
+package com.cipsoft.candidate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of random sub-route queries against one shared route, by the number of querying threads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SharedRouteBenchmark {
+
+    @Param({"1000000"})
+    public int stages;
+
+    @Param({"1000", "100000"})
+    public int rangeStages;
+
+    private SharedRoute route;
+
+    /** Query source and plan array of each thread */
+    @State(Scope.Thread)
+    public static class Query {
+        Random random = new Random(4711);
+        int[] plan = new int[101];
+    }
+
+    @Setup
+    public void generate() {
+        route = new SharedRoute(new TourGenerator(TourGenerator.Distribution.UNIFORM, 4711).generate(stages));
+    }
+
+    private long plan(Query query) {
+        int from = query.random.nextInt(stages - rangeStages + 1);
+        int days = 1 + query.random.nextInt(query.plan.length - 1);
+        return route.plan(from, from + rangeStages, days, query.plan);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long plan1Thread(Query query) {
+        return plan(query);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public long plan2Threads(Query query) {
+        return plan(query);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long plan4Threads(Query query) {
+        return plan(query);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long plan8Threads(Query query) {
+        return plan(query);
+    }
+}
@@ -0,0 +1,33 @@
+package com.cipsoft.candidate;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic tour shared by the benchmarks.
+ * Seeded, so every fork and every run benchmarks the same tour.
+ */
+@State(Scope.Benchmark)
+public class TourState {
+
+    @Param({"1000", "100000"})
+    public int stages;
+
+    @Param({"10", "1000"})
+    public int days;
+
+    @Param({"uniform", "heavy-tailed", "giant-stage"})
+    public String distribution;
+
+    /** Distances between every stage */
+    public int[] distances;
+
+    @Setup
+    public void generate() {
+        distances = new TourGenerator(TourGenerator.Distribution.byName(distribution), 4711).generate(stages);
+        // the tour cannot last longer than it has stages
+        days = Math.min(days, stages);
+    }
+}
@@ -0,0 +1,32 @@
+package com.cipsoft.candidate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construction of a TrackPlan including the prefix sums and the first guess
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackPlanBenchmark {
+
+    @Benchmark
+    public TrackPlan arrayFirstGuess(TourState tour) {
+        return new ArrayTrackPlan(tour.distances, tour.days);
+    }
+
+    @Benchmark
+    public TrackPlan linkedFirstGuess(TourState tour) {
+        return new LinkedTrackPlan(tour.distances, tour.days);
+    }
+}
@@ -0,0 +1,74 @@
+package com.cipsoft.candidate;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * PrefixSums calculated from the stage distances and kept in an array on the heap.
+ * Tours of at least PARALLEL_THRESHOLD stages are added up by a parallel prefix on all cores.
+ * Scans over all stations use the DistanceKernels, vectorized if the JVM supports it.
+ */
+public final class ArrayPrefixSums implements PrefixSums {
+
+    /** Tours with at least this many stages are processed in parallel */
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+
+    private final long[] overnights;
+
+    /**
+     * Calculates the absolute distance of every available overnight to the starting point
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     */
+    public ArrayPrefixSums(int[] availableOvernightDistances) {
+        if (availableOvernightDistances.length >= PARALLEL_THRESHOLD) {
+            overnights = parallelPrefix(availableOvernightDistances, ForkJoinPool.commonPool());
+            return;
+        }
+        overnights = new long[availableOvernightDistances.length + 1];
+        overnights[0] = 0;
+        for (int i = 0; i < availableOvernightDistances.length; i++) {
+            overnights[i + 1] = overnights[i] + availableOvernightDistances[i];
+        }
+    }
+
+    /**
+     * Calculates the absolute distance of every available overnight to the starting point
+     * by a parallel prefix, no matter how many stages the tour has
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     * @param pool The threads adding up the distances
+     */
+    public ArrayPrefixSums(int[] availableOvernightDistances, ForkJoinPool pool) {
+        overnights = parallelPrefix(availableOvernightDistances, pool);
+    }
+
+    private static long[] parallelPrefix(int[] availableOvernightDistances, ForkJoinPool pool) {
+        long[] overnights = new long[availableOvernightDistances.length + 1];
+        // started within the pool, so the work is split among its threads
+        pool.invoke(ForkJoinTask.adapt(() -> {
+            Arrays.parallelSetAll(overnights, i -> (i == 0) ? 0 : availableOvernightDistances[i - 1]);
+            Arrays.parallelPrefix(overnights, Long::sum);
+        }));
+        return overnights;
+    }
+
+    @Override
+    public long get(int stationNr) {
+        return overnights[stationNr];
+    }
+
+    @Override
+    public int size() {
+        return overnights.length;
+    }
+
+    @Override
+    public long getLongestStage() {
+        return DistanceKernels.INSTANCE.longestStage(overnights);
+    }
+
+    @Override
+    public void getDistances(int[] stations, long[] distances) {
+        DistanceKernels.INSTANCE.distances(overnights, stations, distances);
+    }
+}
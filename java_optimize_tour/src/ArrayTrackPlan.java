@@ -0,0 +1,112 @@
+package com.cipsoft.candidate;
+
+
+/**
+ * TrackPlan storing the days in flat arrays instead of objects.
+ * Day d begins at overnights[d - 1] and ends at overnights[d],
+ * so adjacent days share their overnight without any reference.
+ * Shifting, commit and undo do not allocate anything.
+ */
+public class ArrayTrackPlan extends TrackPlan {
+
+    // '1' based array of the stage number (in availableOvernights) used for overnight
+    // at the end of each day; [0] is the tour start
+    protected int[] overnights;
+    // '1' based array of the cached distance of each day; only recalculated on changes
+    protected long[] distances;
+    // backup arrays used by undo function
+    protected int[] overnightsUndo;
+    protected long[] distancesUndo;
+
+    /**
+     * ArrayTrackPlan constructor
+     * Calculates a '1st Guess' of optimal distributed overnights when called
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     * @param days The number of days the tour shall last
+     */
+    public ArrayTrackPlan(int[] availableOvernightDistances, int days) {
+        this(new ArrayPrefixSums(availableOvernightDistances), days);
+    }
+
+    /**
+     * ArrayTrackPlan constructor
+     * Calculates a '1st Guess' of optimal distributed overnights when called
+     * @param availableOvernights Absolute distance of each stage from tour start point
+     * @param days The number of days the tour shall last
+     */
+    public ArrayTrackPlan(PrefixSums availableOvernights, int days) {
+        super(availableOvernights, days);
+        overnights = firstGuess();
+        distances = new long[days + 1];
+        availableOvernights.getDistances(overnights, distances);
+        overnightsUndo = overnights.clone();
+        distancesUndo = distances.clone();
+        buildLongestDayIndex();
+    }
+
+    @Override
+    protected void recalcDistance(int day) {
+        distances[day] = availableOvernights.get(overnights[day]) - availableOvernights.get(overnights[day - 1]);
+        distanceChanged(day, distances[day]);
+    }
+
+    @Override
+    public long getDistance(int day) {
+        return distances[day];
+    }
+
+    @Override
+    public int getOvernight(int day) {
+        return overnights[day];
+    }
+
+    @Override
+    public boolean trackEndEarlier(int day) {
+        // at least 2 stages so we can drop one
+        // and we are not on the last trip
+        if (((overnights[day] - overnights[day - 1]) > 1) && (day < days)) {
+            overnights[day]--;
+            recalcDistance(day);
+            recalcDistance(day + 1);
+            return true;
+        } else return false;
+    }
+
+    @Override
+    public boolean trackBeginLater(int day) {
+        // at least 2 stages so we can drop one
+        // and we are not at the beginning
+        if (((overnights[day] - overnights[day - 1]) > 1) && (day > 1)) {
+            overnights[day - 1]++;
+            recalcDistance(day);
+            recalcDistance(day - 1);
+            return true;
+        } else return false;
+    }
+
+    @Override
+    public void setOvernight(int day, int stationNr) {
+        overnights[day] = stationNr;
+        recalcDistance(day);
+        if (day < days)
+            recalcDistance(day + 1);
+    }
+
+    @Override
+    protected void restoreDays(int fromDay, int toDay) {
+        // the begin of the first day is the end of the previous day
+        System.arraycopy(overnightsUndo, fromDay - 1, overnights, fromDay - 1, toDay - fromDay + 2);
+        for (int day = fromDay; day <= toDay; day++) {
+            if (distances[day] != distancesUndo[day]) {
+                distances[day] = distancesUndo[day];
+                longestDays.update(day, distances[day]);
+            }
+        }
+    }
+
+    @Override
+    protected void backupDays(int fromDay, int toDay) {
+        System.arraycopy(overnights, fromDay - 1, overnightsUndo, fromDay - 1, toDay - fromDay + 2);
+        System.arraycopy(distances, fromDay, distancesUndo, fromDay, toDay - fromDay + 1);
+    }
+}
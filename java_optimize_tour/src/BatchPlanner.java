@@ -0,0 +1,143 @@
+package com.cipsoft.candidate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Plans many tour files concurrently within one JVM.
+ * The files are parsed and optimized on a work stealing pool using all cores.
+ * The results are printed in the order of the files, no matter which one is finished first.
+ * A file which cannot be read or optimized is reported and does not stop the others.
+ * Errors like OutOfMemoryError are not caught; they end the whole batch.
+ */
+public class BatchPlanner {
+
+    private final TourSolver solver;
+    private final String planName;
+    private final String parserName;
+
+    /**
+     * BatchPlanner constructor
+     * @param solver The optimization algorithm; shared by all tours
+     * @param planName The data structure of the tours, one of Main.PLANS
+     * @param parserName The parser of text files, one of Main.PARSERS
+     */
+    public BatchPlanner(TourSolver solver, String planName, String parserName) {
+        this.solver = solver;
+        this.planName = planName;
+        this.parserName = parserName;
+    }
+
+    /**
+     * Lists the tour files of a batch
+     * @param directoryOrManifest A directory, whose text and binary tour files are taken in alphabetical order,
+     *                            or a manifest file naming one tour file per line.
+     *                            Relative names are resolved against the manifest's directory,
+     *                            empty lines and lines starting with '#' are skipped.
+     * @return The tour files in the order they shall be printed
+     * @throws IOException if the directory or manifest cannot be read
+     */
+    public static List<String> listTourFiles(String directoryOrManifest) throws IOException {
+        Path path = Paths.get(directoryOrManifest);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(Files::isRegularFile)
+                        .map(Path::toString)
+                        .filter(name -> name.endsWith(".txt") || name.endsWith(BinaryTourFile.EXTENSION))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        Path manifestDirectory = path.toAbsolutePath().getParent();
+        List<String> tourFiles = new ArrayList<>();
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            tourFiles.add(manifestDirectory.resolve(line).toString());
+        }
+        return tourFiles;
+    }
+
+    /**
+     * Plans all tours and prints their results in the given order
+     * @param tourFiles The files to be planned
+     * @param out Destination of the results
+     * @return The number of files which could not be planned
+     */
+    public int run(List<String> tourFiles, PrintStream out) {
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<TourResult>> results = new ArrayList<>(tourFiles.size());
+            for (String file : tourFiles) {
+                results.add(pool.submit(() -> planTour(file)));
+            }
+
+            // print in the order of the files; later tours keep running meanwhile
+            int failed = 0;
+            for (int i = 0; i < tourFiles.size(); i++) {
+                TourResult result;
+                try {
+                    result = results.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error)
+                        throw (Error) e.getCause();
+                    result = new TourResult(String.format("[BatchPlanner]: Failed planning. (%s)\n", e.getCause()), false);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    out.println("[BatchPlanner]: Interrupted.");
+                    return tourFiles.size() - i + failed;
+                }
+                out.printf("== %s ==\n", tourFiles.get(i));
+                out.print(result.text);
+                if (!result.planned)
+                    failed++;
+            }
+            out.printf("%d of %d tours planned.\n", tourFiles.size() - failed, tourFiles.size());
+            return failed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // plans one tour; all its output is collected instead of printed
+    private TourResult planTour(String file) {
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(text, false);
+        boolean planned;
+        try {
+            planned = Main.planTour(file, solver, planName, parserName, out);
+        } catch (RuntimeException e) {
+            out.printf("[BatchPlanner]: Failed planning '%s'. (%s)\n", file, e);
+            planned = false;
+        }
+        out.flush();
+        return new TourResult(text.toString(), planned);
+    }
+
+    /**
+     * Printed result of one tour
+     */
+    private static class TourResult {
+        final String text;
+        final boolean planned;
+
+        TourResult(String text, boolean planned) {
+            this.text = text;
+            this.planned = planned;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Class for reading and writing tour data in a compact binary format.
+ * The file is memory mapped; nothing is parsed or copied while loading.
+ *
+ * Layout, all numbers little endian:
+ * <pre>
+ *  0  int   magic "TOUR"
+ *  4  byte  version
+ *  5  byte  flags: FLAG_VARINT, FLAG_PREFIX_SUMS
+ *  6  short reserved
+ *  8  int   number of stages
+ * 12  int   number of days
+ * 16  long  size of the distance block in bytes
+ * 24        distance block: one int per stage, or one unsigned LEB128 varint per stage
+ *           prefix sum block (optional): stages + 1 ints, aligned to 4 bytes
+ * </pre>
+ * If the prefix sum block is present, TrackPlan uses it directly instead of adding up the distances.
+ * Loading checks the header and the block sizes only, so a tour with a prefix sum block is ready without reading it.
+ * A file from elsewhere may be verified as well: then every distance and prefix sum is checked once,
+ * which takes as long as parsing the tour, see TourConverter --verify.
+ * The prefix sum block holds ints, so tours with prefix sums are limited to a length of 2^31.
+ * A mapped file is limited to 2 GB.
+ */
+public class BinaryTourFile {
+
+    /** File name extension of binary tour files */
+    public static final String EXTENSION = ".tour";
+    /** "TOUR" read as little endian int */
+    public static final int MAGIC = 0x52554F54;
+    public static final byte VERSION = 1;
+    /** Distances are stored as varints instead of ints */
+    public static final int FLAG_VARINT = 1;
+    /** The prefix sum block is present */
+    public static final int FLAG_PREFIX_SUMS = 2;
+
+    private static final int HEADER_SIZE = 24;
+    // returned by nextDistance() for a damaged distance block; no valid distance is negative
+    private static final int DAMAGED = Integer.MIN_VALUE;
+
+    /** Number of days in which the tour shall be finished  */
+    public int days = 0;
+
+    /** Number of stages; remains 0 if loading fails */
+    public int stages = 0;
+
+    /** Reason why loading failed; null if the file was loaded successfully */
+    public String errorMessage = null;
+
+    private int flags;
+    // mapped blocks of the file
+    private ByteBuffer distanceBlock;
+    private IntBuffer prefixSumBlock;
+
+
+    /**
+     * BinaryTourFile constructor. Maps the file and checks its header and block sizes.
+     * stages will remain 0 if loading fails
+     * @param filepath file containing tour data
+     */
+    public BinaryTourFile(String filepath) {
+        this(filepath, false);
+    }
+
+    /**
+     * BinaryTourFile constructor. Maps the file and checks its header and block sizes.
+     * stages will remain 0 if loading fails
+     * @param filepath file containing tour data
+     * @param verify True: check every distance and prefix sum as well; False: trust the blocks
+     */
+    public BinaryTourFile(String filepath, boolean verify) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE)
+                throw new IOException(String.format("'%s' is no tour file.", filepath));
+            if (fileSize > Integer.MAX_VALUE)
+                throw new IOException(String.format("'%s' is too large to be mapped.", filepath));
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            file.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (file.getInt(0) != MAGIC)
+                throw new IOException(String.format("'%s' is no tour file.", filepath));
+            if (file.get(4) != VERSION)
+                throw new IOException(String.format("'%s' has unknown version %d.", filepath, file.get(4)));
+            flags = file.get(5);
+            int fileStages = file.getInt(8);
+            days = file.getInt(12);
+            long distanceBytes = file.getLong(16);
+
+            // do not accept negative values or zero
+            if (fileStages <= 0)
+                throw new IOException(String.format("'%s': Number of stages has to be >= 1!", filepath));
+            if (days <= 0)
+                throw new IOException(String.format("'%s': Number of days has to be >= 1!", filepath));
+
+            // the blocks have to fit into the file
+            boolean hasPrefixSums = (flags & FLAG_PREFIX_SUMS) != 0;
+            long prefixSumStart = hasPrefixSums ? align(HEADER_SIZE + distanceBytes) : HEADER_SIZE + distanceBytes;
+            long prefixSumBytes = hasPrefixSums ? 4L * (fileStages + 1) : 0;
+            boolean validSize = ((flags & FLAG_VARINT) != 0)
+                    ? (distanceBytes >= fileStages) && (distanceBytes <= 5L * fileStages)
+                    : (distanceBytes == 4L * fileStages);
+            if (!validSize || (prefixSumStart + prefixSumBytes > fileSize))
+                throw new IOException(String.format("'%s' is truncated or damaged.", filepath));
+
+            distanceBlock = slice(file, HEADER_SIZE, (int) distanceBytes);
+            if (hasPrefixSums)
+                prefixSumBlock = slice(file, (int) prefixSumStart, (int) prefixSumBytes).asIntBuffer();
+            if (verify)
+                validate(filepath, fileStages);
+            stages = fileStages;
+
+        } catch (NoSuchFileException e) {
+            errorMessage = String.format("[BinaryTourFile]: File '%s' not found.", filepath);
+        } catch (IOException e) {
+            errorMessage = "[BinaryTourFile]: " + e.getMessage();
+            stages = 0; // indicates failed loading
+        }
+    }
+
+    /**
+     * Absolute distance of each stage from tour start point.
+     * Uses the mapped prefix sum block if the file contains one, otherwise they are calculated
+     * from the mapped distances, either on the heap or into a temporary file, see OffHeapPrefixSums.
+     * @param offHeap True: keep calculated prefix sums off the heap; False: in an array on the heap
+     * @return The prefix sums of the tour
+     * @throws IOException if the temporary file cannot be created or the distance block is damaged
+     */
+    public PrefixSums getPrefixSums(boolean offHeap) throws IOException {
+        if (prefixSumBlock != null)
+            return new BufferPrefixSums(prefixSumBlock);
+        if (!offHeap)
+            return new ArrayPrefixSums(getDistances());
+        OffHeapPrefixSums overnights = OffHeapPrefixSums.createTemporary(stages);
+        decodeDistances(overnights::append);
+        return overnights;
+    }
+
+    /**
+     * Decodes the distance block
+     * @return Distances between every stage
+     * @throws IOException if a varint is damaged; only possible if the file was not verified
+     */
+    public int[] getDistances() throws IOException {
+        int[] distances = new int[stages];
+        if ((flags & FLAG_VARINT) != 0) {
+            int[] stage = {0};
+            decodeDistances(distance -> distances[stage[0]++] = distance);
+        } else {
+            distanceBlock.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(distances);
+        }
+        return distances;
+    }
+
+    // checks the distance block and the prefix sum block against each other
+    private void validate(String filepath, int fileStages) throws IOException {
+        ByteBuffer block = distanceBlock.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        boolean varint = (flags & FLAG_VARINT) != 0;
+        if ((prefixSumBlock != null) && (prefixSumBlock.get(0) != 0))
+            throw new IOException(String.format("'%s': Prefix sum of the tour start has to be 0!", filepath));
+        long overnight = 0;
+        for (int i = 0; i < fileStages; i++) {
+            int distance = nextDistance(block, varint);
+            if (distance == DAMAGED)
+                throw new IOException(String.format("'%s' is truncated or damaged.", filepath));
+            if (distance < 1)
+                throw new IOException(String.format("'%s' (stage %d): Distance has to be >= 1!", filepath, i + 1));
+            overnight += distance;
+            if ((prefixSumBlock != null) && (prefixSumBlock.get(i + 1) != overnight))
+                throw new IOException(String.format("'%s' (stage %d): Prefix sum does not match the distances!",
+                        filepath, i + 1));
+        }
+        // every byte of the distance block belongs to a stage
+        if (block.hasRemaining())
+            throw new IOException(String.format("'%s' is truncated or damaged.", filepath));
+    }
+
+    // passes the distance of every stage in order; the sizes of the blocks are checked already
+    private void decodeDistances(IntConsumer consumer) throws IOException {
+        ByteBuffer block = distanceBlock.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        boolean varint = (flags & FLAG_VARINT) != 0;
+        for (int i = 0; i < stages; i++) {
+            int distance = nextDistance(block, varint);
+            if (distance == DAMAGED)
+                throw new IOException("The distance block is truncated or damaged.");
+            consumer.accept(distance);
+        }
+    }
+
+    /**
+     * Reads the distance of the next stage
+     * @return The distance; DAMAGED if the block ends within it or a varint is longer than an int
+     */
+    private static int nextDistance(ByteBuffer block, boolean varint) {
+        if (!varint)
+            return (block.remaining() >= 4) ? block.getInt() : DAMAGED;
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!block.hasRemaining())
+                return DAMAGED;
+            byte b = block.get();
+            // the fifth byte holds the top 4 bits of the int only
+            if ((shift == 28) && ((b & 0xF0) != 0))
+                return DAMAGED;
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        return DAMAGED;
+    }
+
+    /**
+     * Writes tour data to a binary tour file
+     * @param filepath The file to be written
+     * @param availableOvernightDistances Distances between every stage
+     * @param days The number of days the tour shall last
+     * @param varint True: store the distances as varints; False: as ints
+     * @param withPrefixSums True: store the prefix sums as well, so loading does not need to calculate them
+     * @throws IOException if writing fails or the tour is too long to store its prefix sums as ints
+     */
+    public static void write(String filepath, int[] availableOvernightDistances, int days,
+                             boolean varint, boolean withPrefixSums) throws IOException {
+        long distanceBytes = 0;
+        if (varint) {
+            for (int distance : availableOvernightDistances) {
+                distanceBytes += varintSize(distance);
+            }
+        } else distanceBytes = 4L * availableOvernightDistances.length;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.put(VERSION);
+            buffer.put((byte) ((varint ? FLAG_VARINT : 0) | (withPrefixSums ? FLAG_PREFIX_SUMS : 0)));
+            buffer.putShort((short) 0);
+            buffer.putInt(availableOvernightDistances.length);
+            buffer.putInt(days);
+            buffer.putLong(distanceBytes);
+
+            for (int distance : availableOvernightDistances) {
+                if (buffer.remaining() < 5)
+                    flush(channel, buffer);
+                if (varint) {
+                    while ((distance & ~0x7F) != 0) {
+                        buffer.put((byte) ((distance & 0x7F) | 0x80));
+                        distance >>>= 7;
+                    }
+                    buffer.put((byte) distance);
+                } else buffer.putInt(distance);
+            }
+
+            if (withPrefixSums) {
+                // padding up to the next int; the last distance may have left less room than that
+                long padding = align(HEADER_SIZE + distanceBytes) - (HEADER_SIZE + distanceBytes);
+                if (buffer.remaining() < padding)
+                    flush(channel, buffer);
+                for (long i = 0; i < padding; i++) {
+                    buffer.put((byte) 0);
+                }
+                long overnight = 0;
+                for (int i = 0; i <= availableOvernightDistances.length; i++) {
+                    if (buffer.remaining() < 4)
+                        flush(channel, buffer);
+                    buffer.putInt((int) overnight);
+                    if (i < availableOvernightDistances.length) {
+                        overnight += availableOvernightDistances[i];
+                        if (overnight > Integer.MAX_VALUE)
+                            throw new IOException(String.format("'%s': The tour is too long for int prefix sums.", filepath));
+                    }
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static long align(long position) {
+        return (position + 3) & ~3L;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int size) {
+        ByteBuffer block = buffer.duplicate();
+        block.position(position);
+        block.limit(position + size);
+        return block.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,29 @@
+package com.cipsoft.candidate;
+
+import java.nio.IntBuffer;
+
+/**
+ * PrefixSums read directly from a buffer, e.g. the memory mapped prefix sum block of a BinaryTourFile.
+ * Nothing is copied.
+ */
+public final class BufferPrefixSums implements PrefixSums {
+
+    private final IntBuffer overnights;
+
+    /**
+     * @param overnights Absolute distances; the whole buffer from 0 to its limit is used
+     */
+    public BufferPrefixSums(IntBuffer overnights) {
+        this.overnights = overnights;
+    }
+
+    @Override
+    public long get(int stationNr) {
+        return overnights.get(stationNr);
+    }
+
+    @Override
+    public int size() {
+        return overnights.limit();
+    }
+}
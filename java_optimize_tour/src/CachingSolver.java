@@ -0,0 +1,40 @@
+package com.cipsoft.candidate;
+
+/**
+ * Solver answering repeated tours from a PlanCache and optimizing only new ones by another solver.
+ * Several CachingSolvers of different solvers may share one cache.
+ */
+public class CachingSolver implements TourSolver {
+
+    private final TourSolver solver;
+    private final String solverName;
+    private final PlanCache cache;
+
+    /**
+     * CachingSolver constructor
+     * @param solver Optimizes the tours not cached yet
+     * @param solverName Name of the solver; part of the cache key
+     * @param cache The cache; may be shared
+     */
+    public CachingSolver(TourSolver solver, String solverName, PlanCache cache) {
+        this.solver = solver;
+        this.solverName = solverName;
+        this.cache = cache;
+    }
+
+    /**
+     * Distributes the overnights like the cached plan of the tour, or optimizes and caches it
+     * @param trackPlan The tour; its overnights are changed in place and committed afterwards
+     */
+    @Override
+    public void solve(TrackPlan trackPlan) {
+        PlanCache.Key key = new PlanCache.Key(trackPlan.availableOvernights, trackPlan.days, solverName);
+        PlanCache.Plan plan = cache.get(key, trackPlan.availableOvernights);
+        if (plan != null) {
+            plan.applyTo(trackPlan);
+            return;
+        }
+        solver.solve(trackPlan);
+        cache.put(key, new PlanCache.Plan(trackPlan));
+    }
+}
@@ -0,0 +1,108 @@
+package com.cipsoft.candidate;
+
+import java.util.Arrays;
+
+/**
+ * Answers how many days a tour, or any part of it, needs for a fixed maximum daily distance.
+ * Every day walks as far as possible, like ExactSolver.countDays().
+ *
+ * The index stores jump pointers: for every overnight the overnight reached after 1, 2, 4, ... days.
+ * A query combines at most log2(stages) jumps, so it needs O(log(stages)) time
+ * no matter how many days or stages it covers.
+ * Building needs O(stages * log(stages)) time and ints on the heap,
+ * so the index pays off for many queries only; a single count of the whole tour
+ * is cheaper by ExactSolver.countDays().
+ * The index is immutable and may be queried by any number of threads.
+ */
+public class DayCountIndex {
+
+    private final long maxDistance;
+    private final int stages;
+    // jumps[k][i]: overnight reached from overnight i after 2^k days; i itself if the next stage is too long
+    private final int[][] jumps;
+
+    /**
+     * Builds the index
+     * @param overnights absolute distance of each stage from tour start point
+     * @param maxDistance Maximum distance of a day trip
+     */
+    public DayCountIndex(PrefixSums overnights, long maxDistance) {
+        this.maxDistance = maxDistance;
+        stages = overnights.size() - 1;
+        // days of a query never exceed the stages, so 2^(levels - 1) <= stages covers all of them
+        int levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(stages));
+        jumps = new int[levels][];
+
+        // one day: the farthest overnight only moves forward, so it is found by a single pass
+        int[] nextDay = new int[stages + 1];
+        int tripEnd = 0;
+        for (int tripBegin = 0; tripBegin <= stages; tripBegin++) {
+            tripEnd = Math.max(tripEnd, tripBegin);
+            while ((tripEnd < stages) && (overnights.get(tripEnd + 1) - overnights.get(tripBegin) <= maxDistance))
+                tripEnd++;
+            nextDay[tripBegin] = tripEnd;
+        }
+        jumps[0] = nextDay;
+
+        // 2^k days are 2^(k-1) days twice
+        for (int k = 1; k < levels; k++) {
+            int[] half = jumps[k - 1];
+            int[] jump = new int[stages + 1];
+            Arrays.parallelSetAll(jump, overnight -> half[half[overnight]]);
+            jumps[k] = jump;
+        }
+    }
+
+    /** @return The maximum distance of a day trip the index was built for */
+    public long getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @return The days needed for the whole tour; -1 if a stage is longer than the maximum distance
+     */
+    public int countDays() {
+        return countDays(0, stages);
+    }
+
+    /**
+     * Days needed to walk from one overnight to another
+     * @param fromStation Number of the overnight the first day begins at; 0 is the tour start
+     * @param toStation Number of the overnight the last day ends at; at least fromStation
+     * @return The days needed; -1 if a stage in between is longer than the maximum distance
+     */
+    public int countDays(int fromStation, int toStation) {
+        if (fromStation >= toStation)
+            return 0;
+        // take every jump which stays before the destination
+        int overnight = fromStation;
+        int days = 0;
+        for (int k = jumps.length - 1; k >= 0; k--) {
+            if (jumps[k][overnight] < toStation) {
+                overnight = jumps[k][overnight];
+                days += 1 << k;
+            }
+        }
+        // the last day has to reach the destination, unless the walk is stuck at a long stage
+        if (jumps[0][overnight] < toStation)
+            return -1;
+        return days + 1;
+    }
+
+    /**
+     * The farthest overnight reached within some days
+     * @param fromStation Number of the overnight the first day begins at; 0 is the tour start
+     * @param days Number of days; >= 0
+     * @return Number of the overnight at the end of the last day; the tour end at most
+     */
+    public int reach(int fromStation, int days) {
+        // each day walks at least one stage unless it is stuck, so more days than stages do not matter
+        days = Math.min(days, stages);
+        int overnight = fromStation;
+        for (int k = 0; days != 0; k++, days >>>= 1) {
+            if ((days & 1) != 0)
+                overnight = jumps[k][overnight];
+        }
+        return overnight;
+    }
+}
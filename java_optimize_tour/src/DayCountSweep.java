@@ -0,0 +1,68 @@
+package com.cipsoft.candidate;
+
+/**
+ * Finds the minimal maximum day trip for every number of days from 1 to the number of stages.
+ *
+ * The optimum never rises with more days, and it is at least the longest stage and the average day trip
+ * but at most the average day trip plus the longest stage.
+ * The sweep starts with the most days and bisects only between these bounds.
+ * Once the optimum for d days is found, the days needed at that maximum tell
+ * that all day counts down to them share the same optimum, so they are skipped.
+ * The prefix sums are built once and shared by all day counts.
+ */
+public class DayCountSweep {
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return '1' based array of the minimal maximum day trip for each number of days; [0] is unused
+     */
+    public static long[] sweep(PrefixSums overnights) {
+        int stages = overnights.size() - 1;
+        long tourLength = overnights.get(stages);
+        long longestStage = overnights.getLongestStage();
+
+        long[] longestDailyTrack = new long[stages + 1];
+        // the optimum of the day count swept before; no day is shorter than the longest stage
+        long previous = longestStage;
+        int days = stages;
+        while (days >= 1) {
+            long averageDayTrip = (tourLength + days - 1) / days;
+            long lower = Math.max(previous, averageDayTrip);
+            long upper = Math.min(tourLength, averageDayTrip + longestStage);
+
+            // the optimum is mostly close to the lower bound, so gallop upwards first
+            long candidate = lower;
+            long step = 1;
+            while ((candidate < upper) && !isFeasible(overnights, stages, days, candidate)) {
+                lower = candidate + 1;
+                candidate = Math.min(upper, candidate + step);
+                step <<= 1;
+            }
+            upper = candidate;
+            while (lower < upper) {
+                candidate = lower + (upper - lower) / 2;
+                if (isFeasible(overnights, stages, days, candidate))
+                    upper = candidate;
+                else
+                    lower = candidate + 1;
+            }
+
+            // every day count between the days needed at this maximum and 'days' has the same optimum
+            int neededDays = ExactSolver.countDays(overnights, lower, days);
+            for (int d = neededDays; d <= days; d++) {
+                longestDailyTrack[d] = lower;
+            }
+            previous = lower;
+            days = neededDays - 1;
+        }
+        return longestDailyTrack;
+    }
+
+    // Few days are checked faster by bisecting each overnight,
+    // many days by visiting every stage once.
+    private static boolean isFeasible(PrefixSums overnights, int stages, int days, long maxDistance) {
+        if ((long) days * (32 - Integer.numberOfLeadingZeros(stages)) < stages)
+            return ExactSolver.countDays(overnights, maxDistance, days) <= days;
+        return ExactSolver.isFeasible(overnights, days, maxDistance);
+    }
+}
@@ -0,0 +1,242 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the HeuristicOptimizer with the optimum of the ExactSolver on random tours.
+ * Reports per stage and day count: the gap of the heuristic to the optimum,
+ * the loops of the heuristic and the runtime of both solvers.
+ *
+ * A tour is bad if the gap exceeds maxGap percent, the heuristic fails or needs more than maxMillis.
+ * Bad tours are written in the text format to the output directory, so they can be planned by Main.
+ * Tours with a large gap or a failure are shrunk first: stages are removed in halving chunks
+ * and days are dropped as long as the tour stays bad.
+ * Slow tours are written as generated, since their runtime does not survive shrinking reliably.
+ *
+ * Usage: DifferentialHarness [tours per size] [seed] [output directory] [maxGap %] [maxMillis]
+ */
+public class DifferentialHarness {
+
+    /** Stage counts of the generated tours */
+    static final int[] STAGES = {10, 100, 1000, 10000};
+    /** Day counts of the generated tours; only those up to half the stages are used */
+    static final int[] DAYS = {2, 5, 50, 500};
+    // the tour is checked at most this many times while shrinking
+    private static final int SHRINK_ATTEMPTS = 2000;
+
+    private final double maxGap;
+    private final long maxNanos;
+    private final String outputDirectory;
+
+    /**
+     * Distances and days of a tour
+     */
+    static class Tour {
+        final int[] distances;
+        final int days;
+
+        Tour(int[] distances, int days) {
+            this.distances = distances;
+            this.days = days;
+        }
+    }
+
+    /**
+     * One heuristic and exact run of a tour
+     */
+    static class Run {
+        long heuristic;
+        long optimum;
+        int iterations;
+        long heuristicNanos;
+        long exactNanos;
+        // the heuristic threw
+        RuntimeException failure;
+
+        /** @return Gap of the heuristic to the optimum in percent */
+        double gap() {
+            return 100.0 * (heuristic - optimum) / optimum;
+        }
+    }
+
+    /**
+     * DifferentialHarness constructor
+     * @param maxGap Tours with a larger gap in percent are bad
+     * @param maxMillis Tours whose heuristic takes longer are bad
+     * @param outputDirectory Destination of the bad tours
+     */
+    public DifferentialHarness(double maxGap, long maxMillis, String outputDirectory) {
+        this.maxGap = maxGap;
+        this.maxNanos = maxMillis * 1000000;
+        this.outputDirectory = outputDirectory;
+    }
+
+    public static void main(String[] args) {
+        try {
+            int tours = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+            long seed = (args.length > 1) ? Long.parseLong(args[1]) : 4711;
+            String outputDirectory = (args.length > 2) ? args[2] : "differential";
+            double maxGap = (args.length > 3) ? Double.parseDouble(args[3]) : 5.0;
+            long maxMillis = (args.length > 4) ? Long.parseLong(args[4]) : 1000;
+            new DifferentialHarness(maxGap, maxMillis, outputDirectory).run(tours, seed);
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: DifferentialHarness [tours per size] [seed] [output directory] [maxGap %] [maxMillis]");
+        } catch (IOException e) {
+            System.out.printf("[DifferentialHarness]: Failed writing a bad tour. (%s)\n", e.getMessage());
+        }
+    }
+
+    /**
+     * Solves the given number of random tours for every stage and day count and prints the report
+     * @param tours Tours per stage and day count
+     * @param seed Seed of the tours; the same seed gives the same tours
+     * @throws IOException if a bad tour cannot be written
+     */
+    public void run(int tours, long seed) throws IOException {
+        Random random = new Random(seed);
+        TourGenerator.Distribution[] distributions = TourGenerator.Distribution.values();
+        int badTours = 0;
+
+        System.out.printf("%7s %5s %5s %8s %9s %9s %11s %13s %9s\n",
+                "stages", "days", "tours", "optimal", "mean gap", "max gap", "iterations", "heuristic ms", "exact ms");
+        for (int stages : STAGES) {
+            for (int days : DAYS) {
+                if (2 * days > stages)
+                    continue;
+                int optimal = 0;
+                int failed = 0;
+                double gapSum = 0;
+                double maxGapSeen = 0;
+                long iterationSum = 0;
+                long heuristicNanos = 0;
+                long exactNanos = 0;
+                for (int tour = 0; tour < tours; tour++) {
+                    TourGenerator.Distribution distribution = distributions[random.nextInt(distributions.length)];
+                    long tourSeed = random.nextLong();
+                    int[] distances = new TourGenerator(distribution, tourSeed).generate(stages);
+                    Run run = solve(distances, days);
+                    heuristicNanos += run.heuristicNanos;
+                    exactNanos += run.exactNanos;
+                    if (run.failure != null) {
+                        failed++;
+                    } else {
+                        if (run.heuristic == run.optimum)
+                            optimal++;
+                        gapSum += run.gap();
+                        maxGapSeen = Math.max(maxGapSeen, run.gap());
+                        iterationSum += run.iterations;
+                    }
+                    if (isBad(run)) {
+                        badTours++;
+                        save(distances, days, run, String.format("%d-%d-%s-%d", stages, days,
+                                distribution.name().toLowerCase(Locale.ROOT).replace('_', '-'), tourSeed));
+                    }
+                }
+                int solved = Math.max(1, tours - failed);
+                System.out.printf("%7d %5d %5d %8d %8.2f%% %8.2f%% %11d %13.3f %9.3f%s\n",
+                        stages, days, tours, optimal, gapSum / solved, maxGapSeen, iterationSum / solved,
+                        heuristicNanos / 1e6 / tours, exactNanos / 1e6 / tours,
+                        (failed > 0) ? String.format(" (%d failed)", failed) : "");
+            }
+        }
+        System.out.printf("%d bad tours\n", badTours);
+    }
+
+    /**
+     * Solves a tour with both solvers
+     * @param distances Distances between every stage
+     * @param days The days the tour shall be finished in
+     * @return Maximum day trips, loops and runtimes
+     */
+    static Run solve(int[] distances, int days) {
+        Run run = new Run();
+        long start = System.nanoTime();
+        try {
+            OptimizerMetrics metrics = new OptimizerMetrics();
+            HeuristicOptimizer optimizer = new HeuristicOptimizer(distances, days);
+            optimizer.setListener(metrics);
+            optimizer.Optimize();
+            run.heuristic = optimizer.trackPlan.getLongestDailyTrack();
+            run.iterations = metrics.getIterations();
+        } catch (RuntimeException e) {
+            run.failure = e;
+        }
+        run.heuristicNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        run.optimum = ExactSolver.findLongestDailyTrack(new ArrayPrefixSums(distances), days);
+        run.exactNanos = System.nanoTime() - start;
+        return run;
+    }
+
+    private boolean isBad(Run run) {
+        return isWrong(run) || (run.heuristicNanos > maxNanos);
+    }
+
+    // bad no matter how long it takes
+    private boolean isWrong(Run run) {
+        return (run.failure != null) || (run.gap() > maxGap);
+    }
+
+    // shrinks a wrong tour and writes it
+    private void save(int[] distances, int days, Run run, String name) throws IOException {
+        Tour tour = new Tour(distances, days);
+        String reason;
+        if (isWrong(run)) {
+            tour = shrink(tour);
+            run = solve(tour.distances, tour.days);
+            reason = (run.failure != null) ? "failed: " + run.failure : String.format("gap %.2f%%", run.gap());
+        } else {
+            reason = String.format("%.3f ms", run.heuristicNanos / 1e6);
+        }
+
+        Files.createDirectories(Paths.get(outputDirectory));
+        String filepath = Paths.get(outputDirectory, name + ".txt").toString();
+        TourGenerator.write(filepath, tour.distances, tour.days);
+        System.out.printf("Bad tour: %s (%d stages, %d days, %s)\n", filepath, tour.distances.length, tour.days, reason);
+    }
+
+    /**
+     * Removes stages and days as long as the tour stays wrong
+     * @param tour A wrong tour
+     * @return The shrunk tour
+     */
+    Tour shrink(Tour tour) {
+        int[] distances = tour.distances;
+        int days = tour.days;
+        int attempts = 0;
+        boolean shrunk = true;
+        while (shrunk && (attempts < SHRINK_ATTEMPTS)) {
+            shrunk = false;
+            // fewer days, dropping many at once first
+            for (int drop = days / 2; drop >= 1; drop /= 2) {
+                while ((days - drop >= 1) && (attempts++ < SHRINK_ATTEMPTS) && isWrong(solve(distances, days - drop))) {
+                    days -= drop;
+                    shrunk = true;
+                }
+            }
+            // fewer stages, removing large chunks first; every day keeps at least one stage
+            for (int chunk = distances.length / 2; chunk >= 1; chunk /= 2) {
+                int begin = 0;
+                while ((begin + chunk <= distances.length) && (distances.length - chunk >= days)
+                        && (attempts < SHRINK_ATTEMPTS)) {
+                    int[] candidate = new int[distances.length - chunk];
+                    System.arraycopy(distances, 0, candidate, 0, begin);
+                    System.arraycopy(distances, begin + chunk, candidate, begin, candidate.length - begin);
+                    attempts++;
+                    if (isWrong(solve(candidate, days))) {
+                        distances = candidate;
+                        shrunk = true;
+                    } else {
+                        begin += chunk;
+                    }
+                }
+            }
+        }
+        return new Tour(distances, days);
+    }
+}
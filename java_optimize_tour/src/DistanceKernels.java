@@ -0,0 +1,49 @@
+package com.cipsoft.candidate;
+
+/**
+ * Linear scans over the prefix sums of a tour, which the JIT does not vectorize on its own.
+ * INSTANCE is chosen once at startup: VectorDistanceKernels if the JVM runs with
+ * --add-modules jdk.incubator.vector and the CPU has vectors of at least 2 longs,
+ * ScalarDistanceKernels otherwise. -Dtour.kernels=scalar forces the scalar kernels.
+ * The choice is logged once to System.err.
+ * Both give the same results.
+ */
+public abstract class DistanceKernels {
+
+    /** The kernels used by ArrayPrefixSums */
+    public static final DistanceKernels INSTANCE = select();
+
+    private static DistanceKernels select() {
+        DistanceKernels kernels = null;
+        if (!"scalar".equals(System.getProperty("tour.kernels"))) {
+            try {
+                // looked up by reflection, so this class loads without the incubator module
+                kernels = (DistanceKernels) Class.forName("com.cipsoft.candidate.VectorDistanceKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // no vectors, use the scalar kernels
+            }
+        }
+        if (kernels == null)
+            kernels = new ScalarDistanceKernels();
+        System.err.printf("[DistanceKernels]: Using the %s kernels.\n", kernels.getName());
+        return kernels;
+    }
+
+    /** @return Short name of the kernels, e.g. for logging */
+    public abstract String getName();
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return The distance of the longest stage; 0 if there is none
+     */
+    public abstract long longestStage(long[] overnights);
+
+    /**
+     * Distances between consecutive overnights
+     * @param overnights absolute distance of each stage from tour start point
+     * @param stations Ascending numbers of overnights
+     * @param distances Receives [i] = overnights[stations[i]] - overnights[stations[i - 1]] for i >= 1
+     */
+    public abstract void distances(long[] overnights, int[] stations, long[] distances);
+}
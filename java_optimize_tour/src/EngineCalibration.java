@@ -0,0 +1,128 @@
+package com.cipsoft.candidate;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the constants of the EngineSelector cost model on this machine.
+ * Every engine solves TourGenerator tours of each distribution, stage and day count;
+ * the fastest of several runs is divided by the quantity the cost model multiplies the constant with:
+ * <pre>
+ * heuristic  time / (days^3 * (1 + spread))
+ * exact      time / (stages * candidates)
+ * parallel   (time - exact time / cores) / candidates
+ * </pre>
+ * The heuristic constant is taken from tours without a dominating stage only,
+ * because EngineSelector never chooses the heuristic for the others and it stops at once on them.
+ * Prints one line per tour and the medians, which are the values to use for the EngineSelector constants.
+ * Only the time of solve() is measured, building the TrackPlan is the same for every engine.
+ *
+ * Usage: EngineCalibration [runs per tour] [seed] [cores]
+ */
+public class EngineCalibration {
+
+    /** Stage counts of the generated tours */
+    static final int[] STAGES = {1000, 10000, 100000};
+    /** Day counts of the generated tours; only those up to half the stages are used */
+    static final int[] DAYS = {10, 100, 1000};
+
+    public static void main(String[] args) {
+        try {
+            int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+            long seed = (args.length > 1) ? Long.parseLong(args[1]) : 4711;
+            int cores = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            new EngineCalibration().run(runs, seed, cores);
+        } catch (NumberFormatException e) {
+            System.out.println("Usage: EngineCalibration [runs per tour] [seed] [cores]");
+        }
+    }
+
+    /**
+     * Measures all tours and prints the constants
+     * @param runs Runs per tour and engine; the fastest one counts
+     * @param seed Seed of the tours; the same seed gives the same tours
+     * @param cores Threads of the parallel solver
+     */
+    public void run(int runs, long seed, int cores) {
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        TourSolver[] solvers = {new HeuristicSolver(), new ExactSolver(), new ParallelExactSolver(pool)};
+        int tours = 0;
+        for (int stages : STAGES) {
+            for (int days : DAYS) {
+                if (2 * days <= stages)
+                    tours += TourGenerator.Distribution.values().length;
+            }
+        }
+        double[] heuristicNanos = new double[tours];
+        int heuristicTours = 0;
+        double[] exactNanos = new double[tours];
+        double[] parallelNanos = new double[tours];
+
+        // the first round is not counted, so the JIT has compiled all engines
+        solveFastest(solvers, new ArrayPrefixSums(new TourGenerator(TourGenerator.Distribution.UNIFORM, seed)
+                .generate(STAGES[1])), DAYS[1], runs);
+
+        System.out.printf("%7s %5s %-13s %6s %10s %13s %9s %12s %11s %15s\n", "stages", "days", "distribution",
+                "spread", "candidates", "heuristic ms", "exact ms", "parallel ms", "heuristic", "exact parallel");
+        int tour = 0;
+        try {
+            for (int stages : STAGES) {
+                for (int days : DAYS) {
+                    if (2 * days > stages)
+                        continue;
+                    for (TourGenerator.Distribution distribution : TourGenerator.Distribution.values()) {
+                        PrefixSums overnights = new ArrayPrefixSums(
+                                new TourGenerator(distribution, seed + tour).generate(stages));
+                        long tourLength = overnights.get(stages);
+                        long averageDayTrip = (tourLength + days - 1) / days;
+                        long longestStage = overnights.getLongestStage();
+                        long lowerBound = Math.max(longestStage, averageDayTrip);
+                        double spread = EngineSelector.spread(overnights);
+                        int candidates = EngineSelector.candidates(tourLength, lowerBound);
+
+                        long[] nanos = solveFastest(solvers, overnights, days, runs);
+                        boolean dominated = longestStage >= averageDayTrip;
+                        double heuristic = nanos[0] / ((double) days * days * days * (1.0 + spread));
+                        if (!dominated)
+                            heuristicNanos[heuristicTours++] = heuristic;
+                        exactNanos[tour] = nanos[1] / ((double) stages * candidates);
+                        parallelNanos[tour] = (nanos[2] - (double) nanos[1] / cores) / candidates;
+                        System.out.printf("%7d %5d %-13s %6.2f %10d %13.3f %9.3f %12.3f %11s %6.2f %8.0f\n",
+                                stages, days, distribution, spread, candidates, nanos[0] / 1e6, nanos[1] / 1e6,
+                                nanos[2] / 1e6, dominated ? "dominated" : String.format("%.2f", heuristic),
+                                exactNanos[tour], parallelNanos[tour]);
+                        tour++;
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.printf("Medians on %d cores: HEURISTIC_NANOS = %.1f, EXACT_NANOS = %.1f, PARALLEL_NANOS = %.0f\n",
+                cores, median(Arrays.copyOf(heuristicNanos, heuristicTours)), median(exactNanos), median(parallelNanos));
+    }
+
+    // fastest solve() of each solver on a new first guess of the tour
+    private static long[] solveFastest(TourSolver[] solvers, PrefixSums overnights, int days, int runs) {
+        long[] fastest = new long[solvers.length];
+        Arrays.fill(fastest, Long.MAX_VALUE);
+        for (int run = 0; run < runs; run++) {
+            for (int solver = 0; solver < solvers.length; solver++) {
+                TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+                long start = System.nanoTime();
+                solvers[solver].solve(trackPlan);
+                fastest[solver] = Math.min(fastest[solver], System.nanoTime() - start);
+            }
+        }
+        return fastest;
+    }
+
+    private static double median(double[] values) {
+        if (values.length == 0)
+            return Double.NaN;
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return (sorted.length % 2 == 1) ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -0,0 +1,162 @@
+package com.cipsoft.candidate;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Solver choosing the engine for each tour by a cost model and logging its choice.
+ *
+ * One pass over the prefix sums gives the tour length, the longest stage and the spread of the stages
+ * (standard deviation / mean). The estimated runtimes are:
+ * <pre>
+ * heuristic  HEURISTIC_NANOS * days^3 * (1 + spread)
+ * exact      EXACT_NANOS * stages * candidates, candidates = log2(tour length - lower bound)
+ * parallel   exact / cores + PARALLEL_NANOS * candidates
+ * </pre>
+ * If the longest stage is at least the average day trip ceil(tour length / days), one stage dominates
+ * the tour: its day is already optimal, while the heuristic keeps shifting the others.
+ * The heuristic is not chosen then. Otherwise the engine with the smallest estimate wins.
+ * The heuristic hardly depends on the stage count, but grows with about the cube of the days.
+ * The default constants are the medians EngineCalibration measured on a single core
+ * with TourGenerator tours of 1000 to 100000 stages and 10 to 1000 days;
+ * run it on the target machine and pass its results to the constructor there.
+ * The parallel overhead of a single core is a poor guess for a machine with several.
+ * The parallel engine runs on a pool of its own with one thread per core the estimate assumes.
+ */
+public class EngineSelector implements TourSolver {
+
+    /** Heuristic time per day^3 */
+    public static final double HEURISTIC_NANOS = 8.8;
+    /** Exact time per stage and bisection candidate */
+    public static final double EXACT_NANOS = 1.0;
+    /** Time to distribute one candidate to the threads of the parallel solver */
+    public static final double PARALLEL_NANOS = 37000.0;
+
+    /**
+     * The engines to choose from; the names are those of Main.createSolver() and of the log
+     */
+    public enum Engine {
+        HEURISTIC, EXACT, PARALLEL;
+
+        /** @return The name of the solver */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final double heuristicNanos;
+    private final double exactNanos;
+    private final double parallelNanos;
+    private final int cores;
+    // one stateless solver per engine
+    private final TourSolver[] solvers = new TourSolver[Engine.values().length];
+    // receives the choices; null if nobody is interested
+    private final PrintStream log;
+
+    /**
+     * EngineSelector constructor using the default constants and all cores, logging to System.err
+     */
+    public EngineSelector() {
+        this(HEURISTIC_NANOS, EXACT_NANOS, PARALLEL_NANOS, Runtime.getRuntime().availableProcessors(), System.err);
+    }
+
+    /**
+     * EngineSelector constructor with constants calibrated for another machine
+     * @param heuristicNanos Heuristic time per day^3
+     * @param exactNanos Exact time per stage and bisection candidate
+     * @param parallelNanos Time to distribute one candidate to the threads of the parallel solver
+     * @param cores Threads of the parallel solver; the parallel solver is never chosen if 1
+     * @param log Receives one line per choice; null for no logging
+     * @throws IllegalArgumentException if cores is less than 1
+     */
+    public EngineSelector(double heuristicNanos, double exactNanos, double parallelNanos, int cores, PrintStream log) {
+        if (cores < 1)
+            throw new IllegalArgumentException(String.format("%d cores; at least 1 is needed.", cores));
+        this.heuristicNanos = heuristicNanos;
+        this.exactNanos = exactNanos;
+        this.parallelNanos = parallelNanos;
+        this.cores = cores;
+        this.log = log;
+        solvers[Engine.HEURISTIC.ordinal()] = new HeuristicSolver();
+        solvers[Engine.EXACT.ordinal()] = new ExactSolver();
+        // its worker threads are daemons and started on demand, so the pool needs no shutdown
+        solvers[Engine.PARALLEL.ordinal()] = new ParallelExactSolver(new ForkJoinPool(cores));
+    }
+
+    /**
+     * Solves the tour by the engine select() chooses
+     * @param trackPlan The tour; its overnights are changed in place and committed afterwards
+     */
+    @Override
+    public void solve(TrackPlan trackPlan) {
+        solvers[select(trackPlan.availableOvernights, trackPlan.days).ordinal()].solve(trackPlan);
+    }
+
+    /**
+     * Chooses the engine with the smallest estimated runtime and logs the choice
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @return The engine
+     */
+    public Engine select(PrefixSums overnights, int days) {
+        int stages = overnights.size() - 1;
+        long tourLength = overnights.get(stages);
+        long longestStage = overnights.getLongestStage();
+        double spread = spread(overnights);
+        long averageDayTrip = (tourLength + days - 1) / days;
+        long lowerBound = Math.max(longestStage, averageDayTrip);
+        boolean dominated = longestStage >= averageDayTrip;
+
+        int candidates = candidates(tourLength, lowerBound);
+        double heuristic = heuristicNanos * days * days * days * (1.0 + spread);
+        double exact = exactNanos * stages * candidates;
+        double parallel = exact / cores + parallelNanos * candidates;
+
+        Engine engine;
+        String reason;
+        if ((cores > 1) && (parallel < exact)) {
+            engine = Engine.PARALLEL;
+            reason = "parallel bisection is cheapest";
+        } else {
+            engine = Engine.EXACT;
+            reason = "bisection is cheapest";
+        }
+        if (dominated) {
+            reason = String.format("longest stage %d km >= average day trip %d km, %s", longestStage, averageDayTrip, reason);
+        } else if (heuristic < Math.min(exact, parallel)) {
+            engine = Engine.HEURISTIC;
+            reason = "heuristic is cheapest";
+        }
+
+        if (log != null)
+            log.printf("[EngineSelector]: %s (%s; %d stages, %d days, spread %.2f; estimated heuristic %.3f ms, exact %.3f ms%s)\n",
+                    engine.getName(), reason, stages, days, spread, heuristic / 1e6, exact / 1e6,
+                    (cores > 1) ? String.format(", parallel %.3f ms", parallel / 1e6) : "");
+        return engine;
+    }
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return Standard deviation of the stage distances divided by their mean
+     */
+    static double spread(PrefixSums overnights) {
+        int stages = overnights.size() - 1;
+        double squares = 0;
+        for (int i = 1; i <= stages; i++) {
+            double distance = overnights.get(i) - overnights.get(i - 1);
+            squares += distance * distance;
+        }
+        double mean = (double) overnights.get(stages) / stages;
+        return Math.sqrt(Math.max(0.0, squares / stages - mean * mean)) / mean;
+    }
+
+    /**
+     * @param tourLength Distance of the tour end from the tour start
+     * @param lowerBound No maximum day trip can be shorter
+     * @return Number of candidates of the bisection between the lower bound and the tour length
+     */
+    static int candidates(long tourLength, long lowerBound) {
+        return 64 - Long.numberOfLeadingZeros(Math.max(1, tourLength - lowerBound));
+    }
+}
@@ -0,0 +1,166 @@
+package com.cipsoft.candidate;
+
+/**
+ * This algorithm finds the provably minimal maximum day trip.
+ * It searches the maximum daily distance by bisection between a lower bound and the tour length.
+ * Each candidate distance is checked greedily against the absolute overnight distances
+ * of the TrackPlan: walk as far as possible every day, the candidate is feasible
+ * if the tour can be finished within the given days.
+ * Needs O(stages * log(tour length)) time and no additional memory.
+ */
+public class ExactSolver implements TourSolver {
+
+    /**
+     * Finds the minimal maximum day trip and distributes the overnights accordingly.
+     * The tour must not have more days than stages.
+     * @param trackPlan The tour; its overnights are changed in place and committed afterwards
+     */
+    @Override
+    public void solve(TrackPlan trackPlan) {
+        PrefixSums overnights = trackPlan.availableOvernights;
+        int days = trackPlan.days;
+
+        long longestDay = bisectLongestDailyTrack(overnights, days);
+        placeOvernights(trackPlan, longestDay);
+        trackPlan.commitShift();
+    }
+
+    /**
+     * Bisection of the maximum daily distance
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @return The smallest possible maximum day trip
+     */
+    public static long findLongestDailyTrack(PrefixSums overnights, int days) {
+        return new ExactSolver().bisectLongestDailyTrack(overnights, days);
+    }
+
+    /**
+     * Bisection of the maximum daily distance using longestStage() and isFeasibleCandidate(),
+     * which may be overridden, e.g. by ParallelExactSolver
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @return The smallest possible maximum day trip
+     */
+    protected long bisectLongestDailyTrack(PrefixSums overnights, int days) {
+        int stages = overnights.size() - 1;
+
+        // no day can be shorter than the longest stage or the average day trip
+        long tourLength = overnights.get(stages);
+        long lower = Math.max(longestStage(overnights), (tourLength + days - 1) / days);
+        // walking the whole tour in one day is always possible
+        long upper = tourLength;
+
+        while (lower < upper) {
+            long candidate = lower + (upper - lower) / 2;
+            if (isFeasibleCandidate(overnights, days, candidate))
+                upper = candidate;
+            else
+                lower = candidate + 1;
+        }
+        return lower;
+    }
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return The distance of the longest stage
+     */
+    protected long longestStage(PrefixSums overnights) {
+        return overnights.getLongestStage();
+    }
+
+    /**
+     * Checks a candidate of the bisection; see isFeasible()
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @param maxDistance Candidate for the maximum day trip; has to be at least the longest stage
+     * @return True: the tour can be finished; False: otherwise
+     */
+    protected boolean isFeasibleCandidate(PrefixSums overnights, int days, long maxDistance) {
+        return isFeasible(overnights, days, maxDistance);
+    }
+
+    /**
+     * Checks if the tour can be finished within the given days
+     * without walking farther than maxDistance on any day.
+     * Each day walks as far as possible.
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @param maxDistance Candidate for the maximum day trip; has to be at least the longest stage
+     * @return True: the tour can be finished; False: otherwise
+     */
+    public static boolean isFeasible(PrefixSums overnights, int days, long maxDistance) {
+        int neededDays = 1;
+        int tripBegin = 0;
+        for (int i = 1; i < overnights.size(); i++) {
+            // stage i can not be reached today, so sleep at the previous one
+            if (overnights.get(i) - overnights.get(tripBegin) > maxDistance) {
+                tripBegin = i - 1;
+                if (++neededDays > days) return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts the days needed without walking farther than maxDistance on any day.
+     * Each day walks as far as possible; the overnight is found by bisection,
+     * so this needs O(days * log(stages)) time instead of visiting every stage.
+     * @param overnights absolute distance of each stage from tour start point
+     * @param maxDistance Candidate for the maximum day trip; has to be at least the longest stage
+     * @param limit Counting stops as soon as more than limit days are needed
+     * @return The number of days needed; limit + 1 if more than limit days are needed
+     */
+    public static int countDays(PrefixSums overnights, long maxDistance, int limit) {
+        int stages = overnights.size() - 1;
+        int neededDays = 0;
+        int tripBegin = 0;
+        while (tripBegin < stages) {
+            if (neededDays == limit)
+                return limit + 1;
+            tripBegin = farthestOvernight(overnights, tripBegin, overnights.get(tripBegin) + maxDistance);
+            neededDays++;
+        }
+        return neededDays;
+    }
+
+    /**
+     * Bisection for the last overnight not farther than the given distance from the tour start
+     * @param overnights absolute distance of each stage from tour start point
+     * @param from The search starts after this overnight
+     * @param limit Distance from the tour start
+     * @return The last stage whose overnight is not farther than limit; at least from
+     */
+    public static int farthestOvernight(PrefixSums overnights, int from, long limit) {
+        int lower = from;
+        int upper = overnights.size() - 1;
+        while (lower < upper) {
+            int middle = (lower + upper + 1) >>> 1;
+            if (overnights.get(middle) <= limit)
+                lower = middle;
+            else
+                upper = middle - 1;
+        }
+        return lower;
+    }
+
+    /**
+     * Walks as far as possible every day, but leaves at least one stage for each remaining day.
+     * @param trackPlan The tour to be changed
+     * @param maxDistance A feasible maximum day trip
+     */
+    protected void placeOvernights(TrackPlan trackPlan, long maxDistance) {
+        PrefixSums overnights = trackPlan.availableOvernights;
+        int stages = overnights.size() - 1;
+        int tripBegin = 0;
+        for (int day = 1; day < trackPlan.days; day++) {
+            long limit = overnights.get(tripBegin) + maxDistance;
+            int lastPossible = stages - (trackPlan.days - day);
+            int tripEnd = tripBegin + 1;
+            while ((tripEnd < lastPossible) && (overnights.get(tripEnd + 1) <= limit))
+                tripEnd++;
+            trackPlan.setOvernight(day, tripEnd);
+            tripBegin = tripEnd;
+        }
+    }
+}
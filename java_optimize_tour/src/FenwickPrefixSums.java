@@ -0,0 +1,60 @@
+package com.cipsoft.candidate;
+
+/**
+ * PrefixSums whose stage distances can be changed afterwards, e.g. by TourEditor.
+ * The distances are kept in a Fenwick tree, so changing a distance and reading
+ * an absolute distance both need O(log(stages)) time instead of recalculating all prefix sums.
+ */
+public final class FenwickPrefixSums implements PrefixSums {
+
+    // '1' based Fenwick tree; entry i holds the sum of the stages i - (i & -i) + 1 .. i
+    private final long[] tree;
+
+    /**
+     * Builds the tree in O(stages) time
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     */
+    public FenwickPrefixSums(int[] availableOvernightDistances) {
+        tree = new long[availableOvernightDistances.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += availableOvernightDistances[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length)
+                tree[parent] += tree[i];
+        }
+    }
+
+    @Override
+    public long get(int stationNr) {
+        long distance = 0;
+        for (int i = stationNr; i > 0; i -= i & -i) {
+            distance += tree[i];
+        }
+        return distance;
+    }
+
+    @Override
+    public int size() {
+        return tree.length;
+    }
+
+    /**
+     * @param stage Number of the stage; stage i leads from overnight i - 1 to overnight i
+     * @return Distance of the stage
+     */
+    public long getStageDistance(int stage) {
+        return get(stage) - get(stage - 1);
+    }
+
+    /**
+     * Changes the distance of a stage and thereby the absolute distance of all following overnights
+     * @param stage Number of the stage; stage i leads from overnight i - 1 to overnight i
+     * @param distance New distance of the stage; has to be >= 1
+     */
+    public void setStageDistance(int stage, long distance) {
+        long difference = distance - getStageDistance(stage);
+        for (int i = stage; i < tree.length; i += i & -i) {
+            tree[i] += difference;
+        }
+    }
+}
@@ -16,6 +16,15 @@ public class FileParser {
     /** Distances between overnight accommodations */
     public int[] availableOvernightDistances = new int[0];
 
+    /** Reason why parsing failed; null if the file was read successfully */
+    public String errorMessage = null;
+
+
+    /**
+     * Constructor for subclasses parsing the file on their own
+     */
+    protected FileParser() {
+    }
 
     /**
      * FileParser constructor. Reads and parses text file.
@@ -25,6 +34,7 @@ public class FileParser {
     public FileParser(String filepath) {
         Scanner scanner = null;
         String msgFileFormatError = "Failed reading number in '%s' line %d.";
+        String msgTooShort = "'%s' is too short for the %d stages of its header.";
         try {
             scanner = new Scanner(new File(filepath));
 
@@ -44,6 +54,9 @@ public class FileParser {
                 throw new IOException(String.format(msgFileFormatError, filepath, 1));
             if (days <= 0)
                 throw new IOException(String.format(msgFileFormatError, filepath, 2));
+            // every stage takes a digit and a separator, so the array never exceeds the file
+            if (stages > (new File(filepath).length() + 1) / 2)
+                throw new IOException(String.format(msgTooShort, filepath, stages));
 
             // allocate stages array
             availableOvernightDistances = new int[stages];
@@ -63,9 +76,9 @@ public class FileParser {
                 throw new IOException(String.format(msgFileFormatError, filepath, i+2));
 
         } catch (FileNotFoundException e) {
-            System.out.println(String.format("[FileParser]: File '%s' not found.", filepath));
+            errorMessage = String.format("[FileParser]: File '%s' not found.", filepath);
         } catch (IOException e) {
-            System.out.println("[FileParser]: " + e.getMessage());
+            errorMessage = "[FileParser]: " + e.getMessage();
             availableOvernightDistances = new int[0]; // indicates failed file parsing or empty file
         } finally {
             if (scanner != null)
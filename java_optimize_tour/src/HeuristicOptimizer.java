@@ -10,13 +10,39 @@ public class HeuristicOptimizer {
     /** The data structure representing the tour */
     public TrackPlan trackPlan = null;
 
+    // receives the progress; null if nobody is interested
+    protected OptimizerListener listener = null;
+    // limits the running optimization; null if there is no limit
+    protected OptimizationBudget budget = null;
+    // the running optimization was stopped by its budget
+    private boolean outOfBudget = false;
+    // sub tour being optimized; its first day begins and its last day ends at fixed overnights
+    protected int fromDay;
+    protected int toDay;
+
     /**
      * Initializes the algorithm
      * @param availableOvernightDistances Distances between available overnights
      * @param days The days the tour shall be finished in
      */
     public HeuristicOptimizer(int[] availableOvernightDistances, int days) {
-        trackPlan = new TrackPlan(availableOvernightDistances, days);
+        trackPlan = new ArrayTrackPlan(availableOvernightDistances, days);
+    }
+
+    /**
+     * Initializes the algorithm with an existing tour
+     * @param trackPlan The tour to be optimized; it is changed in place
+     */
+    public HeuristicOptimizer(TrackPlan trackPlan) {
+        this.trackPlan = trackPlan;
+    }
+
+    /**
+     * Attaches a listener which receives the progress of Optimize()
+     * @param listener The listener; null to detach
+     */
+    public void setListener(OptimizerListener listener) {
+        this.listener = listener;
     }
 
     /**
@@ -30,104 +56,146 @@ public class HeuristicOptimizer {
      * or until one end of the tour will be reached.
      * The same procedure is repeated going in the opposite direction.
      * The whole process repeats until one pivot day cannot be further reduced.
+     * An interrupt of the current thread stops the optimization after the running iteration;
+     * the tour keeps the last committed state.
      */
     public void Optimize() {
+        Optimize(1, trackPlan.days);
+    }
+
+    /**
+     * Anytime variant of Optimize(), which stops as soon as the budget is exhausted.
+     * The budget is checked on every shift; a reduction in progress is undone then,
+     * so the tour is always left in the best committed state reached so far.
+     * @param budget Deadline and cancellation token of this optimization
+     * @return The tour, its farthest daily trip and the gap to the lower bound
+     */
+    public OptimizationResult Optimize(OptimizationBudget budget) {
+        this.budget = budget;
+        try {
+            Optimize();
+        } finally {
+            this.budget = null;
+        }
+        return new OptimizationResult(trackPlan, !outOfBudget);
+    }
+
+    /**
+     * Same as Optimize(), but only within a sub tour, e.g. to repair a few changed days.
+     * The begin of its first day and the end of its last day are not moved.
+     * @param fromDay Sub tour begin
+     * @param toDay Sub tour end
+     */
+    public void Optimize(int fromDay, int toDay) {
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        outOfBudget = false;
         int lastDay = 0;      // last pivot day
         boolean redForward;   // successfully end point; algorithm traveling forwards
         boolean redBackward;  // successfully start point; algorithm traveling backwards
+        int iteration = 0;
         do {
             redForward = false;
             redBackward = false;
             // find the day with the longest daily trip
-            int pivotDay = trackPlan.getLongestDay();
+            long start = (listener != null) ? System.nanoTime() : 0;
+            int pivotDay = trackPlan.getLongestDay(fromDay, toDay);
+            if (listener != null) {
+                listener.phaseFinished(OptimizerListener.Phase.LONGEST_DAY, System.nanoTime() - start);
+                listener.iterationStarted(++iteration, pivotDay, trackPlan.getDistance(pivotDay));
+            }
 
             // this is the first day; so there is only one direction to walk through
-            if (pivotDay == 1) {
-                redForward = reduceForwardDirection(pivotDay);
-                if (redForward)
-                    trackPlan.commitShift();  // The optimization was successful
-                else
-                    trackPlan.undoShift();  // The optimization made things worse, so rollback to the last state
+            if (pivotDay == fromDay) {
+                redForward = tryReduction(pivotDay, true);
 
             // or the last day
-            } else if (pivotDay == trackPlan.days) {
-                redBackward = reduceBackwardDirection(pivotDay);
-                if (redBackward)
-                    trackPlan.commitShift();
-                else
-                    trackPlan.undoShift();
+            } else if (pivotDay == toDay) {
+                redBackward = tryReduction(pivotDay, false);
 
             // pivot day is inside the tour
             } else {
                 // This is the first time the algorithm starts, or the last pivot day is still the current one
                 if ((lastDay == 0) || (lastDay == pivotDay)) {
                     // choose the direction with more days first
-                    if ((double) pivotDay > trackPlan.days / 2) {
-                        redBackward = reduceBackwardDirection(pivotDay);
-                        if (redBackward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
-
-                        redForward = reduceForwardDirection(pivotDay);
-                        if (redForward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
-
+                    if ((double) (pivotDay - fromDay + 1) > (toDay - fromDay + 1) / 2) {
+                        redBackward = tryReduction(pivotDay, false);
+                        redForward = tryReduction(pivotDay, true);
                     } else {
-                        redForward = reduceForwardDirection(pivotDay);
-                        if (redForward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
-
-                        redBackward = reduceBackwardDirection(pivotDay);
-                        if (redBackward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
+                        redForward = tryReduction(pivotDay, true);
+                        redBackward = tryReduction(pivotDay, false);
                     }
                 // the last pivot day is a different one than the current
                 // the algorithm chooses the direction "away" from the last pivot day first,
                 // so any previous optimization will not be ruined
                 } else {
                     if (pivotDay > lastDay) {
-                        redForward = reduceForwardDirection(pivotDay);
-                        if (redForward) {
-                            trackPlan.commitShift();
-                        } else {
-                            trackPlan.undoShift();
-                        }
-
-                        redBackward = reduceBackwardDirection(pivotDay);
-                        if (redBackward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
-
+                        redForward = tryReduction(pivotDay, true);
+                        redBackward = tryReduction(pivotDay, false);
                     } else {
-                        redBackward = reduceBackwardDirection(pivotDay);
-                        if (redBackward)
-                            trackPlan.commitShift();
-                        else
-                            trackPlan.undoShift();
-
-                        redForward = reduceForwardDirection(pivotDay);
-                        if (redForward) {
-                            trackPlan.commitShift();
-                        } else {
-                            trackPlan.undoShift();
-                        }
-
+                        redBackward = tryReduction(pivotDay, false);
+                        redForward = tryReduction(pivotDay, true);
                     } // pivotDay < lastDay
                 } // not first loop, not day = pivotDay
             }
 
             lastDay = pivotDay;
             // abort if we can not improve the situation either forwards or backwards
-        } while (redForward || redBackward);
-        /// commit /undo
+        } while ((redForward || redBackward) && !Thread.currentThread().isInterrupted() && !budgetExhausted());
+
+        if (listener != null)
+            listener.optimizationFinished(iteration, trackPlan.getLongestDailyTrack(fromDay, toDay));
+    }
+
+    /**
+     * Reduces the pivot day in one direction.
+     * The shifts are committed if the reduction is successful and undone otherwise.
+     * @param pivotDay The day with the longest trip
+     * @param forward True: reduceForwardDirection(); False: reduceBackwardDirection()
+     * @return True: Optimization successful; False: otherwise
+     */
+    private boolean tryReduction(int pivotDay, boolean forward) {
+        long start = (listener != null) ? System.nanoTime() : 0;
+        boolean reduced = forward ? reduceForwardDirection(pivotDay) : reduceBackwardDirection(pivotDay);
+        if (listener != null) {
+            long now = System.nanoTime();
+            listener.phaseFinished(forward ? OptimizerListener.Phase.REDUCE_FORWARD : OptimizerListener.Phase.REDUCE_BACKWARD,
+                    now - start);
+            start = now;
+        }
+
+        if (reduced)
+            trackPlan.commitShift();  // The optimization was successful
+        else
+            trackPlan.undoShift();  // The optimization made things worse, so rollback to the last state
+
+        if (listener != null)
+            listener.phaseFinished(reduced ? OptimizerListener.Phase.COMMIT : OptimizerListener.Phase.UNDO,
+                    System.nanoTime() - start);
+        return reduced;
+    }
+
+    // true if the budget does not allow another shift
+    private boolean budgetExhausted() {
+        if ((budget != null) && budget.isExhausted())
+            outOfBudget = true;
+        return outOfBudget;
+    }
+
+    // trackPlan.trackBeginLater() reported to the listener
+    private boolean trackBeginLater(int day) {
+        boolean shifted = trackPlan.trackBeginLater(day);
+        if (listener != null)
+            listener.trackShifted(false, shifted);
+        return shifted;
+    }
+
+    // trackPlan.trackEndEarlier() reported to the listener
+    private boolean trackEndEarlier(int day) {
+        boolean shifted = trackPlan.trackEndEarlier(day);
+        if (listener != null)
+            listener.trackShifted(true, shifted);
+        return shifted;
     }
 
     /**
@@ -136,15 +204,15 @@ public class HeuristicOptimizer {
      * @return True: Optimization successful; False: otherwise
      */
     protected boolean reduceBackwardDirection(int pivotDay) {
-        int distDay;
+        long distDay;
         // find longest day's distance
-        int distPivotDay = trackPlan.getDistance(pivotDay);
+        long distPivotDay = trackPlan.getDistance(pivotDay);
         // begin tour one stage later (sleep one stage later on the previous day)
         // if this affects the previous days negatively,
         // reduce their distance as well
-        for (int day = pivotDay; day > 1; day--) {
+        for (int day = pivotDay; day > fromDay; day--) {
             do {
-                if (!trackPlan.trackBeginLater(day)) return false;
+                if (budgetExhausted() || !trackBeginLater(day)) return false;
                 distDay = trackPlan.getDistance(day);
                 // The pivot day gets reduced by only one step
                 // in order to check the forward direction first
@@ -167,15 +235,15 @@ public class HeuristicOptimizer {
      * @return True: Optimization successful; False: otherwise
      */
     protected boolean reduceForwardDirection(int pivotDay) {
-        int distDay;
+        long distDay;
         // find longest day's distance
-        int distPivotDay = trackPlan.getDistance(pivotDay);
+        long distPivotDay = trackPlan.getDistance(pivotDay);
         // sleep one stage earlier.
         // if this affects the following days negatively,
         // reduce their distance as well
-        for (int day = pivotDay; day < trackPlan.days; day++) {
+        for (int day = pivotDay; day < toDay; day++) {
             do {
-                if (!trackPlan.trackEndEarlier(day)) return false;
+                if (budgetExhausted() || !trackEndEarlier(day)) return false;
                 distDay = trackPlan.getDistance(day);
                 // the pivot day gets reduced by only one step
                 // in order to check the Backward direction first
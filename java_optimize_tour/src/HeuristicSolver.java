@@ -0,0 +1,56 @@
+package com.cipsoft.candidate;
+
+/**
+ * Solver using the evolutionary HeuristicOptimizer.
+ * The result is nearly optimal and starts from the first guess of TrackPlan.
+ */
+public class HeuristicSolver implements TourSolver {
+
+    // receives the progress of every optimization; may be null
+    private final OptimizerListener listener;
+    // time limit of every optimization; 0 if there is none
+    private final long timeLimitMillis;
+    // outcome of the latest optimization with a time limit
+    private volatile OptimizationResult lastResult = null;
+
+    public HeuristicSolver() {
+        this(null);
+    }
+
+    /**
+     * @param listener Receives the progress of every optimization; null if nobody is interested
+     */
+    public HeuristicSolver(OptimizerListener listener) {
+        this(listener, 0);
+    }
+
+    /**
+     * @param listener Receives the progress of every optimization; null if nobody is interested
+     * @param timeLimitMillis Every optimization stops after this time with the best plan reached so far;
+     *                        0 if there is no limit
+     */
+    public HeuristicSolver(OptimizerListener listener, long timeLimitMillis) {
+        this.listener = listener;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    @Override
+    public void solve(TrackPlan trackPlan) {
+        HeuristicOptimizer optimizer = new HeuristicOptimizer(trackPlan);
+        optimizer.setListener(listener);
+        if (timeLimitMillis > 0)
+            lastResult = optimizer.Optimize(new OptimizationBudget(timeLimitMillis));
+        else
+            optimizer.Optimize();
+    }
+
+    /**
+     * Outcome of the latest optimization with a time limit.
+     * If the solver is shared by several threads, it is the one finished last.
+     * @return The plan, its maximum, the lower bound and whether the optimizer finished;
+     *         null if there is no time limit or nothing was solved yet
+     */
+    public OptimizationResult getLastResult() {
+        return lastResult;
+    }
+}
@@ -0,0 +1,171 @@
+package com.cipsoft.candidate;
+
+
+/**
+ * TrackPlan storing each day as an object.
+ * Adjacent days share their OvernightStay, so the days build a chain.
+ */
+public class LinkedTrackPlan extends TrackPlan {
+
+    // '1' based array which makes it more human readable and
+    // less error prone while programming; [0] is a dummy element;
+    protected HikingDay[] hikingDays;
+    // backup array used by undo function
+    protected HikingDay[] hikingDaysUndo;
+
+    /**
+     * LinkedTrackPlan constructor
+     * Calculates a '1st Guess' of optimal distributed overnights when called
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     * @param days The number of days the tour shall last
+     */
+    public LinkedTrackPlan(int[] availableOvernightDistances, int days) {
+        this(new ArrayPrefixSums(availableOvernightDistances), days);
+    }
+
+    /**
+     * LinkedTrackPlan constructor
+     * Calculates a '1st Guess' of optimal distributed overnights when called
+     * @param availableOvernights Absolute distance of each stage from tour start point
+     * @param days The number of days the tour shall last
+     */
+    public LinkedTrackPlan(PrefixSums availableOvernights, int days) {
+        super(availableOvernights, days);
+        // generate '1' based arrays and dummy element 0
+        hikingDays = new HikingDay[days + 1];
+        hikingDaysUndo = new HikingDay[days + 1];
+        hikingDays[0] = new HikingDay();
+        hikingDays[0].tripBegin = new OvernightStay(0);
+        hikingDays[0].tripEnd = new OvernightStay(0);
+        hikingDays[0].tripDistance = 0;
+        hikingDaysUndo[0] = new HikingDay();
+        hikingDaysUndo[0].tripBegin = new OvernightStay(0);
+        hikingDaysUndo[0].tripEnd = new OvernightStay(0);
+        hikingDaysUndo[0].tripDistance = 0;
+
+        // chain the days of the first guess
+        int[] overnights = firstGuess();
+        for (int day = 1; day <= days; day++) {
+            hikingDays[day] = new HikingDay();
+            hikingDays[day].tripBegin = hikingDays[day - 1].tripEnd;
+            hikingDays[day].tripEnd = new OvernightStay(overnights[day]);
+            hikingDays[day].recalcDistance();
+            hikingDaysUndo[day] = new HikingDay();
+            hikingDaysUndo[day].tripBegin = hikingDaysUndo[day - 1].tripEnd;
+            hikingDaysUndo[day].tripEnd = new OvernightStay(overnights[day]);
+            hikingDaysUndo[day].recalcDistance();
+        }
+        buildLongestDayIndex();
+    }
+
+
+    /**
+     * wrapper for stationNr in order to let day1's end and day2's begin point to the same stationNr
+     * even if changed independently, so the days build a chain where each trackEnd is connected
+     * to the trackBegin of the following day
+     */
+    protected class OvernightStay {
+
+        /**  */
+        public int stationNr;
+
+        public long getStageDistance() {
+            return availableOvernights.get(stationNr);
+        }
+
+        /**
+         * Constructor
+         * @param stationNr number of stage (in availableOvernights) used for overnight
+         */
+        public OvernightStay(int stationNr) {
+            this.stationNr = stationNr;
+        }
+    }
+
+    /**
+     * One day of the tour
+     */
+    protected class HikingDay {
+        public OvernightStay tripBegin;
+        public OvernightStay tripEnd;
+        public long tripDistance; // only recalculated on changes
+
+        public void recalcDistance() {
+            tripDistance = tripEnd.getStageDistance() - tripBegin.getStageDistance();
+        }
+
+    }
+
+    @Override
+    protected void recalcDistance(int day) {
+        hikingDays[day].recalcDistance();
+        distanceChanged(day, hikingDays[day].tripDistance);
+    }
+
+    @Override
+    public long getDistance(int day) {
+        return hikingDays[day].tripDistance;
+    }
+
+    @Override
+    public int getOvernight(int day) {
+        return hikingDays[day].tripEnd.stationNr;
+    }
+
+    @Override
+    public boolean trackEndEarlier(int day) {
+        int dBegin = hikingDays[day].tripBegin.stationNr;
+        int dEnd = hikingDays[day].tripEnd.stationNr;
+        // at least 2 stages so we can drop one
+        // and we are not on the last trip
+        if (((dEnd - dBegin) > 1) && (day < days)) {
+            hikingDays[day].tripEnd.stationNr--;
+            recalcDistance(day);
+            recalcDistance(day + 1);
+            return true;
+        } else return false;
+    }
+
+    @Override
+    public boolean trackBeginLater(int day) {
+        int dBegin = hikingDays[day].tripBegin.stationNr;
+        int dEnd = hikingDays[day].tripEnd.stationNr;
+        // at least 2 stages so we can drop one
+        // and we are not at the beginning
+        if (((dEnd - dBegin) > 1) && (day > 1)) {
+            hikingDays[day].tripBegin.stationNr++;
+            recalcDistance(day);
+            recalcDistance(day - 1);
+            return true;
+        } else return false;
+    }
+
+    @Override
+    public void setOvernight(int day, int stationNr) {
+        hikingDays[day].tripEnd.stationNr = stationNr;
+        recalcDistance(day);
+        if (day < days)
+            recalcDistance(day + 1);
+    }
+
+    @Override
+    protected void restoreDays(int fromDay, int toDay) {
+        hikingDays[fromDay].tripBegin.stationNr = hikingDaysUndo[fromDay].tripBegin.stationNr;
+        for (int i = fromDay; i <= toDay; i++) {
+            hikingDays[i].tripEnd.stationNr = hikingDaysUndo[i].tripEnd.stationNr;
+            if (hikingDays[i].tripDistance != hikingDaysUndo[i].tripDistance) {
+                hikingDays[i].tripDistance = hikingDaysUndo[i].tripDistance;
+                longestDays.update(i, hikingDays[i].tripDistance);
+            }
+        }
+    }
+
+    @Override
+    protected void backupDays(int fromDay, int toDay) {
+        hikingDaysUndo[fromDay].tripBegin.stationNr = hikingDays[fromDay].tripBegin.stationNr;
+        for (int i = fromDay; i <= toDay; i++) {
+            hikingDaysUndo[i].tripEnd.stationNr = hikingDays[i].tripEnd.stationNr;
+            hikingDaysUndo[i].tripDistance = hikingDays[i].tripDistance;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends the same tour concurrently to a PlanningServer and reports latency percentiles and throughput.
+ * Usage: LoadTestClient tour.txt [requests] [concurrency] [url]
+ */
+public class LoadTestClient {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: LoadTestClient tour.txt [requests] [concurrency] [url]");
+            return;
+        }
+        int requests;
+        int concurrency;
+        try {
+            requests = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+            concurrency = (args.length > 2) ? Integer.parseInt(args[2]) : 16;
+        } catch (NumberFormatException e) {
+            requests = 0;
+            concurrency = 0;
+        }
+        if ((requests < 1) || (concurrency < 1)) {
+            System.out.println("Requests and concurrency have to be >= 1.");
+            System.out.println("Usage: LoadTestClient tour.txt [requests] [concurrency] [url]");
+            return;
+        }
+        byte[] tour = Files.readAllBytes(Paths.get(args[0]));
+        URI uri = URI.create((args.length > 3) ? args[3] : "http://127.0.0.1:8080/plan");
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(tour)).build();
+
+        // warm up the server and the connections; not measured
+        run(client, request, concurrency * 10, concurrency, new long[concurrency * 10]);
+
+        long[] latencies = new long[requests];
+        long start = System.nanoTime();
+        int failed = run(client, request, requests, concurrency, latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests, %d concurrent, %d failed\n", requests, concurrency, failed);
+        System.out.printf("p50: %.3f ms, p99: %.3f ms, max: %.3f ms\n",
+                percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[requests - 1] / 1e6);
+        System.out.printf("throughput: %.1f requests/s\n", requests / seconds);
+    }
+
+    // sends the requests on 'concurrency' threads; returns the number of failed requests
+    private static int run(HttpClient client, HttpRequest request, int requests, int concurrency, long[] latencies)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            pool.execute(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    long start = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200)
+                            failed.incrementAndGet();
+                    } catch (IOException | InterruptedException e) {
+                        failed.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - start;
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        return failed.get();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+}
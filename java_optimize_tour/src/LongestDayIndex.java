@@ -0,0 +1,114 @@
+package com.cipsoft.candidate;
+
+
+/**
+ * Tournament tree over the distances of the days.
+ * Every node knows the day with the longest trip of its sub tree,
+ * so the longest day of the tour or of any sub tour is found in O(log days).
+ * Changing the distance of one day costs O(log days) as well.
+ * If several days share the longest trip, the first of them wins.
+ */
+public class LongestDayIndex {
+
+    // number of leaves; the smallest power of two not less than the days
+    private final int leaves;
+    // node n has the children 2n and 2n+1; the root is [1];
+    // the leaf of a day is found at [leaves + day - 1]
+    private final int[] longestDay;
+    // '1' based copy of the day distances; [0] belongs to unused leaves
+    private final long[] distance;
+
+    /**
+     * LongestDayIndex constructor
+     * All days have distance 0 until they are set.
+     * @param days The number of days of the tour
+     */
+    public LongestDayIndex(int days) {
+        int size = 1;
+        while (size < days) size <<= 1;
+        leaves = size;
+        longestDay = new int[2 * leaves];
+        distance = new long[days + 1];
+        // unused leaves never win
+        distance[0] = Long.MIN_VALUE;
+        for (int day = 1; day <= days; day++) {
+            longestDay[leaves + day - 1] = day;
+        }
+        build();
+    }
+
+    /**
+     * Sets the distance of a day without updating the tree.
+     * Call build() after setting all days.
+     * @param day The day number of the tour
+     * @param dist Distance between trip begin and end of the day
+     */
+    public void set(int day, long dist) {
+        distance[day] = dist;
+    }
+
+    /**
+     * Rebuilds the whole tree in O(days)
+     */
+    public void build() {
+        for (int node = leaves - 1; node >= 1; node--) {
+            longestDay[node] = longer(longestDay[2 * node], longestDay[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Changes the distance of a day and updates the tree in O(log days)
+     * @param day The day number of the tour
+     * @param dist Distance between trip begin and end of the day
+     */
+    public void update(int day, long dist) {
+        distance[day] = dist;
+        for (int node = (leaves + day - 1) >> 1; node >= 1; node >>= 1) {
+            longestDay[node] = longer(longestDay[2 * node], longestDay[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Get the number of the day with the longest trip
+     * @return The number of the day with the farthest trip
+     */
+    public int getLongestDay() {
+        return longestDay[1];
+    }
+
+    /**
+     * Get the number of the day with the longest trip of a sub tour
+     * @param fromDay sub tour starting at this day
+     * @param toDay sub tour ending at this day
+     * @return The number of the day with the farthest trip; 0 if the sub tour is empty
+     */
+    public int getLongestDay(int fromDay, int toDay) {
+        // results of the left and the right border are kept apart,
+        // so the first day wins if trips are equal
+        int left = 0;
+        int right = 0;
+        int l = leaves + fromDay - 1;
+        int r = leaves + toDay - 1;
+        while (l <= r) {
+            if ((l & 1) == 1) left = longer(left, longestDay[l++]);
+            if ((r & 1) == 0) right = longer(longestDay[r--], right);
+            l >>= 1;
+            r >>= 1;
+        }
+        return longer(left, right);
+    }
+
+    /**
+     * Distance of a day as stored in the index
+     * @param day The day number of the tour
+     * @return Distance between trip begin and end of a day
+     */
+    public long getDistance(int day) {
+        return distance[day];
+    }
+
+    // the day with the longer trip; the first one if both are equal
+    private int longer(int firstDay, int secondDay) {
+        return (distance[secondDay] > distance[firstDay]) ? secondDay : firstDay;
+    }
+}
@@ -1,5 +1,11 @@
 package com.cipsoft.candidate;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
  * Loesung zur Wanderer-Aufgabe fuer Bewerber bei CipSoft
@@ -8,54 +14,509 @@ package com.cipsoft.candidate;
  */
 public class Main {
 
+    /** Names of the parsers for text files */
+    static final String[] PARSERS = {"mapped", "scanner"};
+    /** Names of the data structures of a tour */
+    static final String[] PLANS = {"array", "linked"};
+    /** Names of the places calculated prefix sums are kept */
+    static final String[] PREFIX_SUMS = {"auto", "heap", "mapped"};
+    /** Plans kept by --cache */
+    static final int CACHE_ENTRIES = 1024;
+    /** Printed for unknown options and options which do not fit together */
+    static final String USAGE =
+            "Usage: Main [tour file] [--solver=heuristic|exact|parallel|multistart|auto] [--plan=array|linked]\n"
+            + "            [--parser=mapped|scanner] [--prefix-sums=auto|heap|mapped] [--format=text|csv|binary]\n"
+            + "            [--deadline=ms] [--metrics=summary|file.csv] [--cache=file] [--batch=directory|manifest]\n"
+            + "            [--sweep] [--max-distance=km] [--stream=km] [--no-header] [--server=port]";
+
     public static void main(String[] args) {
 
-        String file;
+        String file = null;
+        String batch = null;
+        String solverName = "heuristic";
+        String planName = "array";
+        String parserName = "mapped";
+        String prefixSumsName = "auto";
+        String metrics = null;
+        String server = null;
+        String deadline = null;
+        String formatName = "text";
+        boolean sweep = false;
+        String maxDistance = null;
+        String stream = null;
+        boolean streamHeader = true;
+        String cache = null;
 
-        // Take the first parameter as file name
-        if (args.length > 0) {
-            file = args[0];
-        } else file = "test1.txt";
+        // Options start with '--', the first other parameter is the file name
+        for (String arg : args) {
+            if (arg.startsWith("--solver="))
+                solverName = arg.substring("--solver=".length());
+            else if (arg.startsWith("--plan="))
+                planName = arg.substring("--plan=".length());
+            else if (arg.startsWith("--parser="))
+                parserName = arg.substring("--parser=".length());
+            else if (arg.startsWith("--prefix-sums="))
+                prefixSumsName = arg.substring("--prefix-sums=".length());
+            else if (arg.startsWith("--batch="))
+                batch = arg.substring("--batch=".length());
+            else if (arg.startsWith("--metrics="))
+                metrics = arg.substring("--metrics=".length());
+            else if (arg.startsWith("--format="))
+                formatName = arg.substring("--format=".length());
+            else if (arg.startsWith("--deadline="))
+                deadline = arg.substring("--deadline=".length());
+            else if (arg.startsWith("--server="))
+                server = arg.substring("--server=".length());
+            else if (arg.equals("--sweep"))
+                sweep = true;
+            else if (arg.startsWith("--max-distance="))
+                maxDistance = arg.substring("--max-distance=".length());
+            else if (arg.startsWith("--cache="))
+                cache = arg.substring("--cache=".length());
+            else if (arg.startsWith("--stream="))
+                stream = arg.substring("--stream=".length());
+            else if (arg.equals("--no-header"))
+                streamHeader = false;
+            else if (arg.startsWith("--")) {
+                System.out.printf("Unknown option '%s'.\n", arg);
+                System.out.println(USAGE);
+                return;
+            } else if (file == null)
+                file = arg;
+        }
+        if (file == null)
+            file = "test1.txt";
 
-        // read tour data
-        FileParser tourInfo = new FileParser(file);
+        TourSolver solver = createSolver(solverName);
+        if (solver == null) {
+            System.out.printf("Unknown solver '%s'. Use 'heuristic', 'exact', 'parallel', 'multistart' or 'auto'.\n", solverName);
+            return;
+        }
+        if (!Arrays.asList(PARSERS).contains(parserName)) {
+            System.out.printf("Unknown parser '%s'. Use 'mapped' or 'scanner'.\n", parserName);
+            return;
+        }
+        if (!Arrays.asList(PLANS).contains(planName)) {
+            System.out.printf("Unknown plan '%s'. Use 'array' or 'linked'.\n", planName);
+            return;
+        }
+        if (!Arrays.asList(PREFIX_SUMS).contains(prefixSumsName)) {
+            System.out.printf("Unknown prefix sums '%s'. Use 'auto', 'heap' or 'mapped'.\n", prefixSumsName);
+            return;
+        }
+        PlanWriter.Format format;
+        try {
+            format = PlanWriter.Format.byName(formatName);
+        } catch (IllegalArgumentException e) {
+            System.out.printf("Unknown format '%s'. Use 'text', 'csv' or 'binary'.\n", formatName);
+            return;
+        }
+        // BatchPlanner writes text plans with the default prefix sums, without time limit or metrics
+        if ((batch != null) && ((format != PlanWriter.Format.TEXT) || !prefixSumsName.equals("auto")
+                || (deadline != null) || (metrics != null))) {
+            System.out.println("--batch cannot be combined with --format, --prefix-sums, --deadline or --metrics.");
+            System.out.println(USAGE);
+            return;
+        }
 
-        // no data is loaded in order to plan a tour, so quit
-        if (tourInfo.availableOvernightDistances.length == 0)
+        // answer plan requests until the JVM is stopped
+        if (server != null) {
+            try {
+                PlanningServer planningServer = new PlanningServer(Integer.parseInt(server));
+                planningServer.start();
+                System.out.printf("Planning server listening on 127.0.0.1:%d\n", planningServer.getPort());
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.printf("[PlanningServer]: Failed starting on port '%s'. (%s)\n", server, e.getMessage());
+            }
             return;
+        }
 
-        // If there are more days than overnights
-        if (tourInfo.days > tourInfo.availableOvernightDistances.length) {
-            int days = tourInfo.days;
+        // the optimum for every number of days instead of a plan
+        if (sweep) {
+            Tour tour = loadTour(file, parserName, prefixSumsName, System.out);
+            if (tour == null)
+                return;
+            long[] longestDailyTrack = DayCountSweep.sweep(tour.availableOvernights);
+            StringBuilder txt = new StringBuilder();
+            for (int days = 1; days < longestDailyTrack.length; days++) {
+                txt.append(days).append((days == 1) ? " Tag: " : " Tage: ").append(longestDailyTrack[days]).append(" km\n");
+            }
+            System.out.print(txt);
+            return;
+        }
+
+        // plan the tour piped to stdin day by day for a maximum day trip;
+        // with --no-header stdin holds only stage distances instead of a text tour file
+        if (stream != null) {
+            long distance;
+            try {
+                distance = Long.parseLong(stream);
+            } catch (NumberFormatException e) {
+                System.out.printf("Invalid maximum distance '%s'. Use km.\n", stream);
+                return;
+            }
+            StreamingPlanner planner = new StreamingPlanner(distance,
+                    (day, fromStation, toStation, dayDistance) -> System.out.printf("%d. Tag: %d km\n", day, dayDistance));
+            try {
+                long days = planner.plan(Channels.newChannel(System.in), streamHeader, "stdin");
+                System.out.printf("\nTage: %d\nMaximum: %d km\n", days, planner.getLongestDailyTrack());
+            } catch (IOException e) {
+                System.out.println("[StreamingPlanner]: " + e.getMessage());
+            }
+            return;
+        }
+
+        // the days needed for a maximum day trip instead of a plan
+        if (maxDistance != null) {
+            long distance;
+            try {
+                distance = Long.parseLong(maxDistance);
+            } catch (NumberFormatException e) {
+                System.out.printf("Invalid maximum distance '%s'. Use km.\n", maxDistance);
+                return;
+            }
+            Tour tour = loadTour(file, parserName, prefixSumsName, System.out);
+            if (tour == null)
+                return;
+            // a single query; walking the tour once is cheaper than building a DayCountIndex
+            PrefixSums overnights = tour.availableOvernights;
+            int stages = overnights.size() - 1;
+            if (distance < overnights.getLongestStage()) {
+                System.out.printf("%d km: A stage is longer.\n", distance);
+            } else {
+                int days = ExactSolver.countDays(overnights, distance, stages);
+                System.out.printf("%d km: %d %s\n", distance, days, (days == 1) ? "Tag" : "Tage");
+            }
+            return;
+        }
+
+        // answer repeated tours from the plans of former runs
+        PlanCache planCache = null;
+        if (cache != null) {
+            planCache = new PlanCache(CACHE_ENTRIES);
+            try {
+                if (Files.exists(Paths.get(cache)))
+                    planCache.load(cache);
+            } catch (IOException e) {
+                System.out.printf("[PlanCache]: Failed reading '%s'. (%s)\n", cache, e.getMessage());
+            }
+            solver = new CachingSolver(solver, solverName, planCache);
+        }
+
+        // plan all tours of a directory or manifest; exits with 1 if any tour failed
+        if (batch != null) {
+            int failed;
+            try {
+                failed = new BatchPlanner(solver, planName, parserName).run(BatchPlanner.listTourFiles(batch), System.out);
+            } catch (IOException e) {
+                System.out.printf("[BatchPlanner]: Failed reading '%s'. (%s)\n", batch, e.getMessage());
+                failed = 1;
+            }
+            saveCache(planCache, cache, System.out);
+            if (failed > 0)
+                System.exit(1);
+            return;
+        }
+
+        // record the progress of the heuristic optimizer and limit its time; always optimized, never cached
+        OptimizerMetrics optimizerMetrics = null;
+        HeuristicSolver heuristicSolver = null;
+        if ((metrics != null) || (deadline != null)) {
+            if (!solverName.equals("heuristic")) {
+                System.out.println("Metrics and deadlines are supported by the heuristic solver only.");
+                return;
+            }
+            long timeLimitMillis = 0;
+            if (deadline != null) {
+                try {
+                    timeLimitMillis = Long.parseLong(deadline);
+                } catch (NumberFormatException e) {
+                    timeLimitMillis = 0;
+                }
+                // 0 would mean no limit to HeuristicSolver
+                if (timeLimitMillis <= 0) {
+                    System.out.printf("Invalid deadline '%s'. Use milliseconds > 0.\n", deadline);
+                    return;
+                }
+            }
+            if (metrics != null)
+                optimizerMetrics = new OptimizerMetrics();
+            heuristicSolver = new HeuristicSolver(optimizerMetrics, timeLimitMillis);
+            solver = heuristicSolver;
+        }
+
+        boolean planned = planTour(file, solver, planName, parserName, prefixSumsName, format, System.out);
+        // kept out of csv and binary plans
+        saveCache(planCache, cache, (format == PlanWriter.Format.TEXT) ? System.out : System.err);
+        if (!planned)
+            return;
+
+        // how close the plan of the anytime optimization is to the optimum; kept out of csv and binary plans
+        if (deadline != null) {
+            OptimizationResult result = heuristicSolver.getLastResult();
+            PrintStream out = (format == PlanWriter.Format.TEXT) ? System.out : System.err;
+            if (result != null)
+                out.printf("Maximum: %d km, lower bound: %d km, gap: %d km (%s)\n", result.longestDailyTrack,
+                        result.lowerBound, result.getGap(), result.finished ? "finished" : "stopped at the deadline");
+        }
+        if (optimizerMetrics == null)
+            return;
+
+        // print the summary or write the trace
+        if (metrics.equals("summary")) {
+            optimizerMetrics.printSummary(System.out);
+        } else {
+            try {
+                optimizerMetrics.writeCsv(metrics);
+            } catch (IOException e) {
+                System.out.printf("Failed writing metrics to '%s'. (%s)\n", metrics, e.getMessage());
+            }
+        }
+    }
+
+    // prints the counters of the plan cache and writes it for the next run, if there is one
+    private static void saveCache(PlanCache planCache, String filepath, PrintStream out) {
+        if (planCache == null)
+            return;
+        out.printf("[PlanCache]: %s\n", planCache.getSummary());
+        try {
+            planCache.save(filepath);
+        } catch (IOException e) {
+            System.out.printf("[PlanCache]: Failed writing '%s'. (%s)\n", filepath, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a tour file, optimizes the tour and prints the result
+     * @param file file containing tour data; text or BinaryTourFile
+     * @param solver The optimization algorithm
+     * @param planName The data structure of the tour, one of PLANS
+     * @param parserName The parser of text files, one of PARSERS
+     * @param out Destination of the result and of all messages
+     * @return True: the tour was planned; False: the file could not be read or optimized
+     */
+    static boolean planTour(String file, TourSolver solver, String planName, String parserName, PrintStream out) {
+        return planTour(file, solver, planName, parserName, "auto", PlanWriter.Format.TEXT, out);
+    }
+
+    /**
+     * Reads a tour file, optimizes the tour and writes the result in the given format
+     * @param file file containing tour data; text or BinaryTourFile
+     * @param solver The optimization algorithm
+     * @param planName The data structure of the tour, one of PLANS
+     * @param parserName The parser of text files, one of PARSERS
+     * @param prefixSumsName The place of calculated prefix sums, one of PREFIX_SUMS
+     * @param format Layout of the result
+     * @param out Destination of the result; of all messages as well if the format is TEXT, otherwise System.err
+     * @return True: the tour was planned; False: the file could not be read or optimized
+     */
+    static boolean planTour(String file, TourSolver solver, String planName, String parserName,
+                            String prefixSumsName, PlanWriter.Format format, PrintStream out) {
+
+        // read tour data; its messages are kept out of csv and binary plans as well
+        Tour tour = loadTour(file, parserName, prefixSumsName, (format == PlanWriter.Format.TEXT) ? out : System.err);
+
+        // no data is loaded in order to plan a tour, so quit
+        if (tour == null)
+            return false;
+
+        return planTour(tour.availableOvernights, tour.days, solver, planName, format, out);
+    }
+
+    /**
+     * Reads a tour file and prints why it cannot be read, if so
+     * @param file file containing tour data; text or BinaryTourFile
+     * @param parserName The parser of text files, one of PARSERS
+     * @param prefixSumsName The place of calculated prefix sums, one of PREFIX_SUMS
+     * @param out Destination of all messages
+     * @return The tour data; null if no data was loaded
+     */
+    static Tour loadTour(String file, String parserName, String prefixSumsName, PrintStream out) {
+        try {
+            if (file.endsWith(BinaryTourFile.EXTENSION)) {
+                BinaryTourFile tourFile = new BinaryTourFile(file);
+                if (tourFile.errorMessage != null)
+                    out.println(tourFile.errorMessage);
+                if (tourFile.stages == 0)
+                    return null;
+                try {
+                    return new Tour(tourFile.getPrefixSums(isOffHeap(prefixSumsName, tourFile.stages)), tourFile.days);
+                } catch (IOException e) {
+                    out.printf("[BinaryTourFile]: Failed loading the prefix sums of '%s'. (%s)\n", file, e.getMessage());
+                    return null;
+                }
+            }
+            FileParser tourInfo = createFileParser(parserName, file);
+            if (tourInfo.errorMessage != null)
+                out.println(tourInfo.errorMessage);
             int stages = tourInfo.availableOvernightDistances.length;
-            System.out.printf("There are %d days to walk a %d stages tour.\nThis is more time than necessary.\n",
-                    tourInfo.days, tourInfo.availableOvernightDistances.length);
-            tourInfo.days = stages;
-            System.out.printf("A route in %d days is suggested below.\nUse the remaining %d days for relaxing, if you wouldn't mind.\n",
-                    tourInfo.days, days - tourInfo.days);
+            if (stages == 0)
+                return null;
+            if (isOffHeap(prefixSumsName, stages))
+                return new Tour(OffHeapPrefixSums.of(tourInfo.availableOvernightDistances), tourInfo.days);
+            return new Tour(new ArrayPrefixSums(tourInfo.availableOvernightDistances), tourInfo.days);
+        } catch (IOException e) {
+            out.printf("[OffHeapPrefixSums]: Failed mapping the prefix sums of '%s'. (%s)\n", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Decides where the calculated prefix sums of a tour are kept.
+     * Text tours need 4 bytes per stage on the heap while parsing in any case.
+     * @param name 'heap', 'mapped' or 'auto': mapped if the prefix sums would take more than a quarter of the heap
+     * @param stages Number of stages of the tour
+     * @return True: in a mapped temporary file, see OffHeapPrefixSums; False: in an array on the heap
+     */
+    static boolean isOffHeap(String name, int stages) {
+        switch (name) {
+            case "heap":
+                return false;
+            case "mapped":
+                return true;
+            default:
+                return 8L * (stages + 1) > Runtime.getRuntime().maxMemory() / 4;
         }
+    }
 
-        // initialize the optimization algorithm
-        HeuristicOptimizer optimalTour = new HeuristicOptimizer(tourInfo.availableOvernightDistances, tourInfo.days);
+    /**
+     * Tour data read by loadTour()
+     */
+    static final class Tour {
+        /** Absolute distance of each stage from tour start point */
+        final PrefixSums availableOvernights;
+        /** The days the tour shall be finished in */
+        final int days;
 
-        // store the first approach as backup
-        String txtFirstGuess = optimalTour.toString();
+        Tour(PrefixSums availableOvernights, int days) {
+            this.availableOvernights = availableOvernights;
+            this.days = days;
+        }
+    }
 
+    /**
+     * Optimizes a tour and prints the result
+     * @param availableOvernights Absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @param solver The optimization algorithm
+     * @param planName The data structure of the tour, one of PLANS
+     * @param out Destination of the result and of all messages
+     * @return True: the tour was planned; False: optimizing failed and the first guess was printed instead
+     */
+    static boolean planTour(PrefixSums availableOvernights, int days, TourSolver solver, String planName, PrintStream out) {
+        return planTour(availableOvernights, days, solver, planName, PlanWriter.Format.TEXT, out);
+    }
+
+    /**
+     * Optimizes a tour and writes the result in the given format
+     * @param availableOvernights Absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @param solver The optimization algorithm
+     * @param planName The data structure of the tour, one of PLANS
+     * @param format Layout of the result; TEXT is framed by empty lines
+     * @param out Destination of the result; of all messages as well if the format is TEXT, otherwise System.err
+     * @return True: the tour was planned; False: optimizing failed and the first guess was written instead
+     */
+    static boolean planTour(PrefixSums availableOvernights, int days, TourSolver solver, String planName,
+                            PlanWriter.Format format, PrintStream out) {
+
+        // messages are kept out of csv and binary plans
+        PrintStream messages = (format == PlanWriter.Format.TEXT) ? out : System.err;
+
+        // If there are more days than overnights
+        int stages = availableOvernights.size() - 1;
+        if (days > stages) {
+            messages.printf("There are %d days to walk a %d stages tour.\nThis is more time than necessary.\n",
+                    days, stages);
+            messages.printf("A route in %d days is suggested below.\nUse the remaining %d days for relaxing, if you wouldn't mind.\n",
+                    stages, days - stages);
+            days = stages;
+        }
+
+        // initialize the tour with a first guess
+        TrackPlan optimalTour = createTrackPlan(planName, availableOvernights, days);
+
+        boolean optimized = true;
         try {
-            // successive optimize the tour plan
-            optimalTour.Optimize();
+            // optimize the tour plan
+            solver.solve(optimalTour);
         } catch (Exception e) {
-            System.out.printf("An error occured while optimizing. Sorry, this should not happen.\n(%s)\n\n", e.getMessage());
-            System.out.println("Indeed there is a nearly optimal route:");
-            System.out.println();
-            System.out.println(txtFirstGuess);
-            return;
+            messages.printf("An error occured while optimizing. Sorry, this should not happen.\n(%s)\n\n", e.getMessage());
+            messages.println("Indeed there is a nearly optimal route:");
+            // the first guess is built again as backup, so a successful optimization never pays for a copy
+            optimalTour = createTrackPlan(planName, availableOvernights, days);
+            optimized = false;
+        }
+
+        // Display the optimized tour, or the first guess
+        if (format == PlanWriter.Format.TEXT)
+            out.println();
+        try {
+            PlanWriter.write(optimalTour, format, Channels.newChannel(out));
+        } catch (IOException e) {
+            messages.printf("Failed writing the plan. (%s)\n", e.getMessage());
+        }
+        if (format == PlanWriter.Format.TEXT) {
+            out.println();
+            out.println();
+        }
+        return optimized;
+    }
+
+    /**
+     * Creates the optimization algorithm by name
+     * @param name 'heuristic', 'exact', 'parallel', 'multistart' or 'auto'
+     * @return The solver; null if the name is unknown
+     */
+    static TourSolver createSolver(String name) {
+        switch (name) {
+            case "heuristic":
+                return new HeuristicSolver();
+            case "exact":
+                return new ExactSolver();
+            case "parallel":
+                return new ParallelExactSolver();
+            case "multistart":
+                return new MultiStartSolver();
+            case "auto":
+                return new EngineSelector();
+            default:
+                return null;
         }
+    }
 
-        // Display the optimized tour
-        System.out.println();
-        System.out.println(optimalTour.toString());
-        System.out.println();
+    /**
+     * Reads the tour data with the parser of the given name
+     * @param name 'mapped' or 'scanner'
+     * @param file file containing tour data
+     * @return The parsed tour data; null if the name is unknown
+     */
+    static FileParser createFileParser(String name, String file) {
+        switch (name) {
+            case "mapped":
+                return new MappedFileParser(file);
+            case "scanner":
+                return new FileParser(file);
+            default:
+                return null;
+        }
+    }
 
+    /**
+     * Creates the data structure of the tour by name
+     * @param name 'array' or 'linked'
+     * @param availableOvernights Absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @return The tour containing the first guess; null if the name is unknown
+     */
+    static TrackPlan createTrackPlan(String name, PrefixSums availableOvernights, int days) {
+        switch (name) {
+            case "array":
+                return new ArrayTrackPlan(availableOvernights, days);
+            case "linked":
+                return new LinkedTrackPlan(availableOvernights, days);
+            default:
+                return null;
+        }
     }
 }
@@ -0,0 +1,176 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class for reading and parsing tour data from a text file.
+ * Same file format, validation and messages as FileParser, but much faster on large files:
+ * The file is memory mapped and the numbers are decoded directly from the bytes
+ * instead of using the regular expressions of java.util.Scanner.
+ * Tour data already in memory is parsed the same way.
+ */
+public class MappedFileParser extends FileParser {
+
+    // files larger than this are mapped piecewise
+    private static final int WINDOW_SIZE = 1 << 28;
+
+    private FileChannel channel;
+    private long fileSize;
+    // file position of the mapped window
+    private long windowStart;
+    private ByteBuffer window;
+    // the last number read by nextInt()
+    private int number;
+
+    /**
+     * MappedFileParser constructor. Reads and parses text file.
+     * availableOvernightDistances.length will remain 0 if parsing fails
+     * @param filepath file containing tour data
+     */
+    public MappedFileParser(String filepath) {
+        try (FileChannel fileChannel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+            channel = fileChannel;
+            fileSize = channel.size();
+            map(0);
+            parse(filepath);
+        } catch (NoSuchFileException e) {
+            errorMessage = String.format("[FileParser]: File '%s' not found.", filepath);
+        } catch (IOException e) {
+            errorMessage = "[FileParser]: " + e.getMessage();
+            availableOvernightDistances = new int[0]; // indicates failed file parsing or empty file
+        } finally {
+            channel = null;
+            window = null;
+        }
+    }
+
+    /**
+     * MappedFileParser constructor. Parses tour data which is already in memory, e.g. received by PlanningServer.
+     * availableOvernightDistances.length will remain 0 if parsing fails
+     * @param data tour data in the format of a text file; read from its position to its limit
+     * @param name name of the data used in error messages
+     */
+    public MappedFileParser(ByteBuffer data, String name) {
+        window = data.slice();
+        fileSize = window.limit();
+        try {
+            parse(name);
+        } catch (IOException e) {
+            errorMessage = "[FileParser]: " + e.getMessage();
+            availableOvernightDistances = new int[0]; // indicates failed parsing or empty data
+        } finally {
+            window = null;
+        }
+    }
+
+    // reads the whole tour data
+    private void parse(String filepath) throws IOException {
+        String msgFileFormatError = "Failed reading number in '%s' line %d.";
+        String msgTooShort = "'%s' is too short for the %d stages of its header.";
+
+        // Number of tour stages
+        int stages;
+        if (nextInt()) {
+            stages = number;
+        } else throw new IOException(String.format(msgFileFormatError, filepath, 1));
+
+        // Number of days
+        if (nextInt()) {
+            days = number;
+        } else throw new IOException(String.format(msgFileFormatError, filepath, 2));
+
+        // do not accept negative values or zero
+        if (stages <= 0)
+            throw new IOException(String.format(msgFileFormatError, filepath, 1));
+        if (days <= 0)
+            throw new IOException(String.format(msgFileFormatError, filepath, 2));
+        // every stage takes a digit and a separator, so the array never exceeds the data, e.g. of a request
+        if (stages > (fileSize + 1) / 2)
+            throw new IOException(String.format(msgTooShort, filepath, stages));
+
+        // allocate stages array
+        availableOvernightDistances = new int[stages];
+
+        // read distances
+        int i = 0;
+        while ((i < stages) && nextInt()) {
+            if ( (availableOvernightDistances[i++] = number) < 1 /* distance negative or 0 */ )
+            {
+                throw new IOException(String.format("'%s' (line %d): Distance has to be >= 1!",
+                        filepath, i+2));
+            }
+        }
+
+        // Not a number or not enough stages defined
+        if (i < stages)
+            throw new IOException(String.format(msgFileFormatError, filepath, i+2));
+    }
+
+    // maps the part of the file beginning at the given position
+    private void map(long position) throws IOException {
+        windowStart = position;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+    }
+
+    // next byte of the file; -1 at the end of the file
+    private int nextByte() throws IOException {
+        if (!window.hasRemaining()) {
+            long position = windowStart + window.limit();
+            if (position >= fileSize)
+                return -1;
+            map(position);
+        }
+        return window.get() & 0xFF;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return (c == ' ') || (c == '\n') || (c == '\r') || (c == '\t') || (c == '\f') || (c == 0x0B);
+    }
+
+    /**
+     * Reads the next whitespace separated number into 'number'.
+     * Accepts the same tokens as Scanner.nextInt(): an optional sign followed by decimal digits
+     * within the range of int.
+     * @return True: a number was read; False: end of file or the token is not a number
+     */
+    private boolean nextInt() throws IOException {
+        int c;
+        do {
+            c = nextByte();
+        } while (isWhitespace(c));
+        if (c == -1)
+            return false;
+
+        boolean negative = false;
+        if ((c == '-') || (c == '+')) {
+            negative = (c == '-');
+            c = nextByte();
+        }
+
+        long value = 0;
+        int digits = 0;
+        while ((c >= '0') && (c <= '9')) {
+            value = value * 10 + (c - '0');
+            // more than int can hold
+            if (value > (long) Integer.MAX_VALUE + 1)
+                return false;
+            digits++;
+            c = nextByte();
+        }
+        // the token has to end with whitespace or the end of file
+        if ((digits == 0) || !((c == -1) || isWhitespace(c)))
+            return false;
+
+        if (negative)
+            value = -value;
+        if (value > Integer.MAX_VALUE)
+            return false;
+        number = (int) value;
+        return true;
+    }
+}
@@ -0,0 +1,115 @@
+package com.cipsoft.candidate;
+
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Solver running the HeuristicOptimizer from several starts concurrently and keeping the best result.
+ * The first start is the first guess of TrackPlan, the others are randomly perturbed first guesses.
+ * Every start is optimized on its own copy of the tour, so the workers share nothing but the prefix sums.
+ * As soon as one worker reaches the lower bound, max(ceil(tour length / days), longest stage),
+ * no other start can do better and the remaining workers are interrupted.
+ * The same seed always gives the same starts.
+ */
+public class MultiStartSolver implements TourSolver {
+
+    private final int starts;
+    private final long seed;
+
+    /**
+     * MultiStartSolver constructor using one start per core
+     */
+    public MultiStartSolver() {
+        this(Runtime.getRuntime().availableProcessors(), 4711);
+    }
+
+    /**
+     * @param starts Number of starts; at least 1
+     * @param seed Seed of the perturbations
+     */
+    public MultiStartSolver(int starts, long seed) {
+        this.starts = Math.max(1, starts);
+        this.seed = seed;
+    }
+
+    /**
+     * Optimizes all starts and distributes the overnights of trackPlan like the best one
+     * @param trackPlan The tour; its overnights are changed in place and committed afterwards
+     */
+    @Override
+    public void solve(TrackPlan trackPlan) {
+        PrefixSums overnights = trackPlan.availableOvernights;
+        int days = trackPlan.days;
+        long lowerBound = trackPlan.getLowerBound();
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(starts, Runtime.getRuntime().availableProcessors()));
+        CompletionService<TrackPlan> workers = new ExecutorCompletionService<>(executor);
+        TrackPlan best = null;
+        try {
+            for (int start = 0; start < starts; start++) {
+                int current = start;
+                workers.submit(() -> optimize(overnights, days, current));
+            }
+            for (int i = 0; i < starts; i++) {
+                TrackPlan result = workers.take().get();
+                if ((best == null) || (result.getLongestDailyTrack() < best.getLongestDailyTrack()))
+                    best = result;
+                // no start can be better than this
+                if (best.getLongestDailyTrack() <= lowerBound)
+                    break;
+            }
+        } catch (InterruptedException e) {
+            // keep the best result so far
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A start failed.", e.getCause());
+        } finally {
+            // stops the remaining workers
+            executor.shutdownNow();
+        }
+        if (best == null)
+            return;
+
+        for (int day = 1; day < days; day++) {
+            trackPlan.setOvernight(day, best.getOvernight(day));
+        }
+        trackPlan.commitShift();
+    }
+
+    // optimizes one start on its own copy of the tour
+    private TrackPlan optimize(PrefixSums overnights, int days, int start) {
+        TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+        if (start > 0)
+            perturb(trackPlan, new Random(seed + start));
+        new HeuristicOptimizer(trackPlan).Optimize();
+        return trackPlan;
+    }
+
+    /**
+     * Moves every overnight of the first guess randomly by up to half the stages of an average day.
+     * The overnights are kept in order and every day keeps at least one stage.
+     * @param trackPlan The tour to be changed
+     * @param random The source of the perturbation
+     */
+    protected void perturb(TrackPlan trackPlan, Random random) {
+        int days = trackPlan.days;
+        int stages = trackPlan.availableOvernights.size() - 1;
+        int spread = Math.max(1, stages / days / 2);
+
+        // stored as overnight - day, which has to be ascending and within 0 .. stages - days
+        int[] overnights = new int[days + 1];
+        for (int day = 1; day < days; day++) {
+            int overnight = trackPlan.getOvernight(day) + random.nextInt(2 * spread + 1) - spread;
+            overnights[day] = Math.max(overnights[day - 1], Math.min(Math.max(overnight - day, 0), stages - days));
+        }
+        for (int day = 1; day < days; day++) {
+            trackPlan.setOvernight(day, overnights[day] + day);
+        }
+        trackPlan.commitShift();
+    }
+}
@@ -0,0 +1,120 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PrefixSums kept as longs outside of the Java heap, so huge tours need only a small heap.
+ * The values are stored in a memory mapped temporary file, which counts neither against the heap
+ * nor against -XX:MaxDirectMemorySize, only against the address space and the file system.
+ * The file is created in java.io.tmpdir; on a tmpfs it takes RAM, so point -Djava.io.tmpdir at a disk
+ * for tours larger than the free memory.
+ * A single buffer holds at most 2 GB, so the values are split into chunks of CHUNK_SIZE longs.
+ * The prefix sums are filled by append(), one stage after the other.
+ */
+public final class OffHeapPrefixSums implements PrefixSums {
+
+    // longs per chunk; a power of 2, so a station is found by shift and mask
+    private static final int CHUNK_SHIFT = 27;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final LongBuffer[] chunks;
+    private final int size;
+    // number of entries filled so far
+    private int filled;
+
+    private OffHeapPrefixSums(LongBuffer[] chunks, int size) {
+        this.chunks = chunks;
+        this.size = size;
+        put(0, 0);
+    }
+
+    /**
+     * Creates a temporary file for the prefix sums of a tour and maps it;
+     * the tour start is set, the stages have to be appended.
+     * The file is removed right away where the system allows it for mapped files, otherwise when the JVM exits.
+     * @param stages Number of stages
+     * @return The empty prefix sums
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static OffHeapPrefixSums createTemporary(int stages) throws IOException {
+        int size = stages + 1;
+        Path file = Files.createTempFile("prefix-sums", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new OffHeapPrefixSums(map(channel, size), size);
+        } finally {
+            // the mapping keeps the data; Windows does not delete mapped files
+            try {
+                Files.delete(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Calculates the absolute distance of every available overnight to the starting point
+     * into a temporary file, see createTemporary()
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     * @return The prefix sums
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static OffHeapPrefixSums of(int[] availableOvernightDistances) throws IOException {
+        OffHeapPrefixSums overnights = createTemporary(availableOvernightDistances.length);
+        for (int distance : availableOvernightDistances) {
+            overnights.append(distance);
+        }
+        return overnights;
+    }
+
+    private static LongBuffer[] map(FileChannel channel, int size) throws IOException {
+        LongBuffer[] chunks = new LongBuffer[chunkCount(size)];
+        for (int chunk = 0; chunk < chunks.length; chunk++) {
+            chunks[chunk] = channel.map(FileChannel.MapMode.READ_WRITE, 8L * chunk * CHUNK_SIZE, 8L * chunkLength(chunk, size))
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+        return chunks;
+    }
+
+    private static int chunkCount(int size) {
+        return (int) (((long) size + CHUNK_SIZE - 1) >> CHUNK_SHIFT);
+    }
+
+    private static int chunkLength(int chunk, int size) {
+        return (int) Math.min(CHUNK_SIZE, size - ((long) chunk << CHUNK_SHIFT));
+    }
+
+    /**
+     * Adds the next stage
+     * @param distance Distance of the stage; has to be >= 1
+     */
+    public void append(long distance) {
+        if (filled == size)
+            throw new IllegalStateException("All stages are appended.");
+        put(filled, get(filled - 1) + distance);
+    }
+
+    private void put(int stationNr, long distance) {
+        chunks[stationNr >>> CHUNK_SHIFT].put(stationNr & CHUNK_MASK, distance);
+        filled = stationNr + 1;
+    }
+
+    @Override
+    public long get(int stationNr) {
+        return chunks[stationNr >>> CHUNK_SHIFT].get(stationNr & CHUNK_MASK);
+    }
+
+    /**
+     * @return Number of entries; the number of stages + 1, also while stages are still appended
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,57 @@
+package com.cipsoft.candidate;
+
+/**
+ * Limits the time of an optimization by a deadline and a cancellation token.
+ * The optimizer asks isExhausted() on every shift, so the check has to be cheap:
+ * The clock is read only every CLOCK_INTERVAL checks, the cancellation is a single volatile read.
+ * One instance per optimization; cancel() may be called from any thread.
+ */
+public class OptimizationBudget {
+
+    // checks between two readings of the clock; a power of 2
+    private static final int CLOCK_INTERVAL = 1024;
+
+    private final boolean hasDeadline;
+    // System.nanoTime() of the deadline
+    private final long deadline;
+    private volatile boolean cancelled = false;
+    private boolean expired = false;
+    private int checks = 0;
+
+    /**
+     * Budget without deadline; only cancel() stops the optimization
+     */
+    public OptimizationBudget() {
+        hasDeadline = false;
+        deadline = 0;
+    }
+
+    /**
+     * @param timeLimitMillis Time from now on the optimization may take
+     */
+    public OptimizationBudget(long timeLimitMillis) {
+        hasDeadline = true;
+        deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+    }
+
+    /** Stops the optimization at its next check */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** @return True: cancel() was called */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return True: the optimization has to stop, because it was cancelled or the deadline has passed
+     */
+    public boolean isExhausted() {
+        if (cancelled || expired)
+            return true;
+        if (hasDeadline && ((++checks & (CLOCK_INTERVAL - 1)) == 1) && (System.nanoTime() - deadline >= 0))
+            expired = true;
+        return expired;
+    }
+}
@@ -0,0 +1,35 @@
+package com.cipsoft.candidate;
+
+/**
+ * Outcome of an optimization which may have been stopped by its OptimizationBudget
+ */
+public class OptimizationResult {
+
+    /** The tour in its last committed state */
+    public final TrackPlan trackPlan;
+    /** The farthest daily trip of the tour */
+    public final long longestDailyTrack;
+    /** No tour can have a shorter farthest daily trip, see TrackPlan.getLowerBound() */
+    public final long lowerBound;
+    /** True: the optimizer finished; False: it was stopped by the budget */
+    public final boolean finished;
+
+    /**
+     * OptimizationResult constructor
+     * @param trackPlan The tour in its last committed state
+     * @param finished True: the optimizer finished; False: it was stopped by the budget
+     */
+    public OptimizationResult(TrackPlan trackPlan, boolean finished) {
+        this.trackPlan = trackPlan;
+        this.longestDailyTrack = trackPlan.getLongestDailyTrack();
+        this.lowerBound = trackPlan.getLowerBound();
+        this.finished = finished;
+    }
+
+    /**
+     * @return Distance the farthest daily trip may be longer than the optimum; 0 if it is optimal
+     */
+    public long getGap() {
+        return longestDailyTrack - lowerBound;
+    }
+}
@@ -0,0 +1,53 @@
+package com.cipsoft.candidate;
+
+/**
+ * Receives the progress of the HeuristicOptimizer.
+ * Without an attached listener the optimizer only pays for a null check per event.
+ */
+public interface OptimizerListener {
+
+    /**
+     * Steps of one optimization loop whose time is measured
+     */
+    enum Phase {
+        /** Finding the pivot day */
+        LONGEST_DAY,
+        /** reduceForwardDirection() */
+        REDUCE_FORWARD,
+        /** reduceBackwardDirection() */
+        REDUCE_BACKWARD,
+        /** commitShift() after a successful reduction */
+        COMMIT,
+        /** undoShift() after a failed reduction */
+        UNDO
+    }
+
+    /**
+     * A new optimization loop starts
+     * @param iteration Number of the loop, starting with 1
+     * @param pivotDay The day with the longest trip
+     * @param longestDailyTrack The distance of the pivot day
+     */
+    void iterationStarted(int iteration, int pivotDay, long longestDailyTrack);
+
+    /**
+     * trackEndEarlier() or trackBeginLater() was called
+     * @param endEarlier True: trackEndEarlier(); False: trackBeginLater()
+     * @param shifted The return value of the call
+     */
+    void trackShifted(boolean endEarlier, boolean shifted);
+
+    /**
+     * A phase of the optimization loop is finished
+     * @param phase The phase
+     * @param nanos Time spent in the phase
+     */
+    void phaseFinished(Phase phase, long nanos);
+
+    /**
+     * The optimization is finished
+     * @param iterations Number of loops
+     * @param longestDailyTrack The farthest daily trip of the optimized tour
+     */
+    void optimizationFinished(int iterations, long longestDailyTrack);
+}
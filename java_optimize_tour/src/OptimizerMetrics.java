@@ -0,0 +1,135 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Records the progress of one HeuristicOptimizer run:
+ * loop and pivot day counts, shift calls, commits, undos, the time of each phase
+ * and the course of the maximum day trip.
+ * Not thread safe; use one instance per optimization.
+ */
+public class OptimizerMetrics implements OptimizerListener {
+
+    private int iterations = 0;
+    private int pivotDayChanges = 0;
+    private long trackEndEarlierCalls = 0;
+    private long trackBeginLaterCalls = 0;
+    private long failedShifts = 0;
+    private final long[] phaseCount = new long[Phase.values().length];
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long longestDailyTrack = 0;
+
+    // trace of the loops; grows on demand
+    private int[] tracePivotDay = new int[1024];
+    private long[] traceLongestDailyTrack = new long[1024];
+
+    @Override
+    public void iterationStarted(int iteration, int pivotDay, long longestDailyTrack) {
+        if ((iterations > 0) && (tracePivotDay[iterations - 1] != pivotDay))
+            pivotDayChanges++;
+        if (iterations == tracePivotDay.length) {
+            tracePivotDay = Arrays.copyOf(tracePivotDay, 2 * iterations);
+            traceLongestDailyTrack = Arrays.copyOf(traceLongestDailyTrack, 2 * iterations);
+        }
+        tracePivotDay[iterations] = pivotDay;
+        traceLongestDailyTrack[iterations] = longestDailyTrack;
+        iterations++;
+    }
+
+    @Override
+    public void trackShifted(boolean endEarlier, boolean shifted) {
+        if (endEarlier)
+            trackEndEarlierCalls++;
+        else
+            trackBeginLaterCalls++;
+        if (!shifted)
+            failedShifts++;
+    }
+
+    @Override
+    public void phaseFinished(Phase phase, long nanos) {
+        phaseCount[phase.ordinal()]++;
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    @Override
+    public void optimizationFinished(int iterations, long longestDailyTrack) {
+        this.longestDailyTrack = longestDailyTrack;
+    }
+
+    /** @return Number of optimization loops */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /** @return Number of loops whose pivot day differs from the one of the previous loop */
+    public int getPivotDayChanges() {
+        return pivotDayChanges;
+    }
+
+    /** @return Number of trackEndEarlier() calls */
+    public long getTrackEndEarlierCalls() {
+        return trackEndEarlierCalls;
+    }
+
+    /** @return Number of trackBeginLater() calls */
+    public long getTrackBeginLaterCalls() {
+        return trackBeginLaterCalls;
+    }
+
+    /** @return Number of commits */
+    public long getCommits() {
+        return phaseCount[Phase.COMMIT.ordinal()];
+    }
+
+    /** @return Number of undos */
+    public long getUndos() {
+        return phaseCount[Phase.UNDO.ordinal()];
+    }
+
+    /**
+     * @param phase A phase of the optimization loop
+     * @return Total time spent in the phase
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Prints a summary of the run
+     * @param out Destination of the summary
+     */
+    public void printSummary(PrintStream out) {
+        out.printf("Iterations: %d\n", iterations);
+        out.printf("Pivot day changes: %d\n", pivotDayChanges);
+        out.printf("trackEndEarlier calls: %d\n", trackEndEarlierCalls);
+        out.printf("trackBeginLater calls: %d\n", trackBeginLaterCalls);
+        out.printf("Impossible shifts: %d\n", failedShifts);
+        out.printf("Commits: %d, undos: %d\n", getCommits(), getUndos());
+        for (Phase phase : Phase.values()) {
+            out.printf("%-16s %10.3f ms (%d times)\n", phase, phaseNanos[phase.ordinal()] / 1e6, phaseCount[phase.ordinal()]);
+        }
+        if (iterations > 0)
+            out.printf("Maximum: %d km -> %d km\n", traceLongestDailyTrack[0], longestDailyTrack);
+    }
+
+    /**
+     * Writes the course of the optimization, one line per loop
+     * @param filepath The CSV file to be written
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(String filepath) throws IOException {
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(Paths.get(filepath), StandardCharsets.US_ASCII))) {
+            csv.println("iteration,pivotDay,longestDailyTrack");
+            for (int i = 0; i < iterations; i++) {
+                csv.printf("%d,%d,%d\n", i + 1, tracePivotDay[i], traceLongestDailyTrack[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.cipsoft.candidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * ExactSolver for huge tours, checking every candidate of the bisection on all threads of a pool.
+ *
+ * The stages are split into chunks. Each chunk is walked greedily on its own,
+ * as if a day began at the first stage of the chunk; this counts the days begun within the chunk
+ * and the overnight the walk leaves the chunk at.
+ * The chunks are then joined from the tour start: If the real walk enters a chunk at another stage,
+ * it is walked together with the walk of the chunk until both sleep at the same overnight,
+ * from where on they are identical. Greedy walks merge after a few days,
+ * so joining needs only a few steps per chunk.
+ * Needs O(stages / threads + chunks * log(stages)) time per candidate.
+ *
+ * Distributing a candidate to the pool costs 5 to 20 microseconds (ParallelBenchmark, 1 to 8 threads),
+ * and walking a chunk is about 13 % slower per stage than the sequential walk. Tours shorter than
+ * MIN_PARALLEL_STAGES and pools of a single thread are therefore checked sequentially like ExactSolver does.
+ */
+public class ParallelExactSolver extends ExactSolver {
+
+    // chunks per thread, so threads finishing early can steal work
+    private static final int CHUNKS_PER_THREAD = 4;
+    /** Fewer stages are checked sequentially; two threads save about the pool overhead at this size */
+    static final int MIN_PARALLEL_STAGES = 1 << 17;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * ParallelExactSolver constructor using all cores; checks sequentially if the common pool has a single thread
+     */
+    public ParallelExactSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool The threads checking the candidates; shared by all tours
+     */
+    public ParallelExactSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    protected long longestStage(PrefixSums overnights) {
+        if (!isParallel(overnights))
+            return super.longestStage(overnights);
+        return longestStageChunked(overnights);
+    }
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return The distance of the longest stage, searched in chunks on the threads of the pool
+     */
+    long longestStageChunked(PrefixSums overnights) {
+        int chunks = pool.getParallelism() * CHUNKS_PER_THREAD;
+        long[] longest = new long[chunks];
+        int stages = overnights.size() - 1;
+        forEachChunk(chunks, chunk -> {
+            int end = chunkStart(chunk + 1, chunks, stages);
+            for (int i = chunkStart(chunk, chunks, stages) + 1; i <= end; i++) {
+                longest[chunk] = Math.max(longest[chunk], overnights.get(i) - overnights.get(i - 1));
+            }
+        });
+
+        long longestStage = 0;
+        for (long distance : longest) {
+            longestStage = Math.max(longestStage, distance);
+        }
+        return longestStage;
+    }
+
+    @Override
+    protected boolean isFeasibleCandidate(PrefixSums overnights, int days, long maxDistance) {
+        if (!isParallel(overnights))
+            return super.isFeasibleCandidate(overnights, days, maxDistance);
+        return isFeasibleChunked(overnights, days, maxDistance);
+    }
+
+    /**
+     * @param overnights absolute distance of each stage from tour start point
+     * @return True: the chunks are walked on the pool; False: the tour is too short or the pool has one thread
+     */
+    boolean isParallel(PrefixSums overnights) {
+        return (pool.getParallelism() > 1) && (overnights.size() - 1 >= MIN_PARALLEL_STAGES);
+    }
+
+    /**
+     * Checks if the tour can be finished within the given days
+     * without walking farther than maxDistance on any day.
+     * Same result as ExactSolver.isFeasible(), but the chunks are walked in parallel.
+     * @param overnights absolute distance of each stage from tour start point
+     * @param days The days the tour shall be finished in
+     * @param maxDistance Candidate for the maximum day trip; has to be at least the longest stage
+     * @return True: the tour can be finished; False: otherwise
+     */
+    boolean isFeasibleChunked(PrefixSums overnights, int days, long maxDistance) {
+        int stages = overnights.size() - 1;
+        int chunks = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, stages);
+        // days begun within each chunk and the overnight leaving it, if a day begins at the chunk start
+        int[] chunkDays = new int[chunks];
+        int[] chunkExit = new int[chunks];
+
+        forEachChunk(chunks, chunk -> {
+            int end = chunkStart(chunk + 1, chunks, stages);
+            int tripBegin = chunkStart(chunk, chunks, stages);
+            int neededDays = 0;
+            int i = tripBegin + 1;
+            while (tripBegin < end) {
+                // walk as far as possible
+                while ((i <= stages) && (overnights.get(i) - overnights.get(tripBegin) <= maxDistance))
+                    i++;
+                tripBegin = i - 1;
+                neededDays++;
+            }
+            chunkDays[chunk] = neededDays;
+            chunkExit[chunk] = tripBegin;
+        });
+
+        // join the chunks along the real walk from the tour start
+        int neededDays = 0;
+        int tripBegin = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int start = chunkStart(chunk, chunks, stages);
+            int end = chunkStart(chunk + 1, chunks, stages);
+            // the real walk has already passed this chunk within one day
+            if (tripBegin >= end)
+                continue;
+
+            if (tripBegin == start) {
+                neededDays += chunkDays[chunk];
+                tripBegin = chunkExit[chunk];
+            } else {
+                // walk along with the chunk's walk until both sleep at the same overnight
+                int chunkTripBegin = start;
+                int chunkWalkDays = 0;
+                int walkDays = 0;
+                while (true) {
+                    if (tripBegin >= end) {
+                        neededDays += walkDays;
+                        break;
+                    }
+                    while (chunkTripBegin < tripBegin) {
+                        chunkTripBegin = nextOvernight(overnights, chunkTripBegin, maxDistance);
+                        chunkWalkDays++;
+                    }
+                    if (chunkTripBegin == tripBegin) {
+                        neededDays += walkDays + chunkDays[chunk] - chunkWalkDays;
+                        tripBegin = chunkExit[chunk];
+                        break;
+                    }
+                    tripBegin = nextOvernight(overnights, tripBegin, maxDistance);
+                    walkDays++;
+                }
+            }
+            if (neededDays > days)
+                return false;
+        }
+        return true;
+    }
+
+    // the overnight reached by walking as far as possible from tripBegin
+    private static int nextOvernight(PrefixSums overnights, int tripBegin, long maxDistance) {
+        return farthestOvernight(overnights, tripBegin, overnights.get(tripBegin) + maxDistance);
+    }
+
+    // first stage of a chunk; chunk == chunks gives the tour end
+    private static int chunkStart(int chunk, int chunks, int stages) {
+        return (int) ((long) chunk * stages / chunks);
+    }
+
+    // runs the action for every chunk on the threads of the pool and waits for all of them
+    private void forEachChunk(int chunks, IntConsumer action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int current = chunk;
+            tasks.add(ForkJoinTask.adapt(() -> action.accept(current)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+}
@@ -0,0 +1,299 @@
+package com.cipsoft.candidate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the plans of recently planned tours, so a repeated tour is not optimized again.
+ * A tour is identified by a 64 bit hash of its prefix sums, its stages, days and the solver name;
+ * the distances themselves are not stored.
+ * When the cache is full, the least recently used plan is evicted.
+ * The cache may be saved to a file and loaded again after a restart.
+ * A cached plan is checked against the tour before it is returned, so a damaged file
+ * or a hash collision is treated as a miss instead of applying a wrong plan.
+ * All methods are thread safe; the cached plans are immutable and may be shared.
+ */
+public class PlanCache {
+
+    /** "PCCH" read as int */
+    public static final int MAGIC = 0x50434348;
+    public static final byte VERSION = 1;
+
+    /**
+     * Identifies a tour planned by a solver
+     */
+    public static final class Key {
+        final long hash;
+        final int stages;
+        final int days;
+        final String solver;
+
+        /**
+         * @param overnights absolute distance of each stage from tour start point
+         * @param days The days the tour shall be finished in
+         * @param solver Name of the solver
+         */
+        public Key(PrefixSums overnights, int days, String solver) {
+            this(hash(overnights), overnights.size() - 1, days, solver);
+        }
+
+        Key(long hash, int stages, int days, String solver) {
+            this.hash = hash;
+            this.stages = stages;
+            this.days = days;
+            this.solver = solver;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return (hash == key.hash) && (stages == key.stages) && (days == key.days) && solver.equals(key.solver);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) ^ (31 * days);
+        }
+    }
+
+    /**
+     * The overnights of a planned tour; immutable
+     */
+    public static final class Plan {
+        private final int[] overnights;
+        private final long longestDailyTrack;
+
+        /**
+         * Copies the overnights of a tour
+         * @param trackPlan The planned tour
+         */
+        public Plan(TrackPlan trackPlan) {
+            overnights = new int[trackPlan.days + 1];
+            for (int day = 0; day <= trackPlan.days; day++) {
+                overnights[day] = trackPlan.getOvernight(day);
+            }
+            longestDailyTrack = trackPlan.getLongestDailyTrack();
+        }
+
+        private Plan(int[] overnights, long longestDailyTrack) {
+            this.overnights = overnights;
+            this.longestDailyTrack = longestDailyTrack;
+        }
+
+        /** @return Number of days */
+        public int getDays() {
+            return overnights.length - 1;
+        }
+
+        /**
+         * @param day '0' based; 0 is the tour start
+         * @return Number of the overnight at the end of the day
+         */
+        public int getOvernight(int day) {
+            return overnights[day];
+        }
+
+        /** @return The farthest daily trip of the plan */
+        public long getLongestDailyTrack() {
+            return longestDailyTrack;
+        }
+
+        /**
+         * Checks the plan against a tour.
+         * Needs O(days) time.
+         * @param availableOvernights absolute distance of each stage from tour start point
+         * @param days The days the tour shall be finished in
+         * @return True: the plan has the days, its overnights ascend from the tour start to the tour end
+         *         and its farthest daily trip on this tour is the cached one
+         */
+        public boolean fits(PrefixSums availableOvernights, int days) {
+            if ((getDays() != days) || !ascends(overnights, availableOvernights.size() - 1))
+                return false;
+            long longest = 0;
+            for (int day = 1; day <= days; day++) {
+                longest = Math.max(longest,
+                        availableOvernights.get(overnights[day]) - availableOvernights.get(overnights[day - 1]));
+            }
+            return longest == longestDailyTrack;
+        }
+
+        // every day walks at least one stage from the tour start to the tour end
+        private static boolean ascends(int[] overnights, int stages) {
+            if ((overnights[0] != 0) || (overnights[overnights.length - 1] != stages))
+                return false;
+            for (int day = 1; day < overnights.length; day++) {
+                if (overnights[day] <= overnights[day - 1])
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Distributes the overnights of a tour like the plan and commits them
+         * @param trackPlan A tour the plan fits, see fits()
+         */
+        public void applyTo(TrackPlan trackPlan) {
+            for (int day = 1; day < getDays(); day++) {
+                trackPlan.setOvernight(day, overnights[day]);
+            }
+            trackPlan.commitShift();
+        }
+    }
+
+    private final int maxEntries;
+    // in access order, the least recently used first; guarded by 'this'
+    private final LinkedHashMap<Key, Plan> plans;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * PlanCache constructor
+     * @param maxEntries Number of plans kept at most; at least 1
+     */
+    public PlanCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+        plans = new LinkedHashMap<Key, Plan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Plan> eldest) {
+                if (size() <= PlanCache.this.maxEntries)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 64 bit hash of the prefix sums of a tour; the same stages always give the same hash
+     * @param overnights absolute distance of each stage from tour start point
+     * @return The hash
+     */
+    public static long hash(PrefixSums overnights) {
+        long hash = overnights.size();
+        for (int i = 1; i < overnights.size(); i++) {
+            hash = Long.rotateLeft((hash ^ overnights.get(i)) * 0x9E3779B97F4A7C15L, 31);
+        }
+        // final mix of MurmurHash3, so every input bit affects every output bit
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @param key The tour
+     * @param availableOvernights absolute distance of each stage of the tour from its start point;
+     *                            a cached plan which does not fit them counts as a miss
+     * @return The cached plan; null if the tour is not cached
+     */
+    public synchronized Plan get(Key key, PrefixSums availableOvernights) {
+        Plan plan = plans.get(key);
+        if ((plan != null) && plan.fits(availableOvernights, key.days)) {
+            hits++;
+            return plan;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Caches a plan; the least recently used plan is evicted if the cache is full
+     * @param key The tour
+     * @param plan Its plan
+     */
+    public synchronized void put(Key key, Plan plan) {
+        plans.put(key, plan);
+    }
+
+    /** @return Number of cached plans */
+    public synchronized int size() {
+        return plans.size();
+    }
+
+    /** @return Number of get() calls which found a plan */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return Number of get() calls which found no plan */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return Number of plans evicted because the cache was full */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** @return The number of plans and the counters in one line */
+    public synchronized String getSummary() {
+        return String.format("%d plans, %d hits, %d misses, %d evictions", plans.size(), hits, misses, evictions);
+    }
+
+    /**
+     * Writes all plans, the least recently used first
+     * @param filepath The file to be written
+     * @throws IOException if writing fails
+     */
+    public synchronized void save(String filepath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(Paths.get(filepath))))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(plans.size());
+            for (Map.Entry<Key, Plan> entry : plans.entrySet()) {
+                Key key = entry.getKey();
+                Plan plan = entry.getValue();
+                out.writeLong(key.hash);
+                out.writeInt(key.stages);
+                out.writeInt(key.days);
+                out.writeUTF(key.solver);
+                out.writeLong(plan.longestDailyTrack);
+                out.writeInt(plan.overnights.length);
+                for (int overnight : plan.overnights) {
+                    out.writeInt(overnight);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the plans written by save(); the counters are not changed.
+     * Plans whose overnights do not ascend from the tour start to the tour end are skipped.
+     * @param filepath The file to be read
+     * @throws IOException if reading fails or the file is no plan cache
+     */
+    public synchronized void load(String filepath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(filepath))))) {
+            if ((in.readInt() != MAGIC) || (in.readByte() != VERSION))
+                throw new IOException(String.format("'%s' is no plan cache.", filepath));
+            int entries = in.readInt();
+            long evicted = evictions;
+            for (int i = 0; i < entries; i++) {
+                Key key = new Key(in.readLong(), in.readInt(), in.readInt(), in.readUTF());
+                long longestDailyTrack = in.readLong();
+                int length = in.readInt();
+                if ((key.days < 1) || (length != key.days + 1))
+                    throw new IOException(String.format("'%s' is no plan cache.", filepath));
+                int[] overnights = new int[length];
+                for (int day = 0; day < overnights.length; day++) {
+                    overnights[day] = in.readInt();
+                }
+                if (Plan.ascends(overnights, key.stages) && (longestDailyTrack >= 1))
+                    plans.put(key, new Plan(overnights, longestDailyTrack));
+            }
+            evictions = evicted;
+        }
+    }
+}
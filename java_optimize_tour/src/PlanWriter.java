@@ -0,0 +1,135 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes an optimized tour directly to a channel through one small buffer.
+ * The numbers are encoded digit by digit, so neither String.format() nor a string of the whole plan is needed.
+ *
+ * Formats:
+ * <pre>
+ * TEXT   same as TrackPlan.toString(): "N. Tag: X km" per day, an empty line and "Maximum: X km"
+ * CSV    header "day,fromStation,toStation,distance" and one line per day
+ * BINARY little endian: int magic "PLAN", byte version, 3 bytes reserved, int days, long maximum,
+ *        then per day: int station of the overnight at its end, long distance
+ * </pre>
+ */
+public class PlanWriter {
+
+    /**
+     * Layout of the written plan
+     */
+    public enum Format {
+        TEXT, CSV, BINARY;
+
+        /**
+         * @param name 'text', 'csv' or 'binary'
+         * @return The format of the given name
+         */
+        public static Format byName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /** "PLAN" read as little endian int */
+    public static final int MAGIC = 0x4E414C50;
+    public static final byte VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // longest record of any format: four numbers of 20 digits plus separators
+    private static final int MAX_RECORD_SIZE = 128;
+
+    private static final byte[] TAG = ". Tag: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] KM = " km\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MAXIMUM = "\nMaximum: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CSV_HEADER = "day,fromStation,toStation,distance\n".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Writes the days of a tour
+     * @param trackPlan The tour to be written
+     * @param format The layout
+     * @param channel Destination; not closed
+     * @throws IOException if writing fails
+     */
+    public static void write(TrackPlan trackPlan, Format format, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long longestDailyTrack = trackPlan.getLongestDailyTrack();
+
+        switch (format) {
+            case CSV:
+                buffer.put(CSV_HEADER);
+                break;
+            case BINARY:
+                buffer.putInt(MAGIC);
+                buffer.put(VERSION);
+                buffer.put((byte) 0).putShort((short) 0);
+                buffer.putInt(trackPlan.days);
+                buffer.putLong(longestDailyTrack);
+                break;
+            default:
+        }
+
+        for (int day = 1; day <= trackPlan.days; day++) {
+            if (buffer.remaining() < MAX_RECORD_SIZE)
+                flush(channel, buffer);
+            long distance = trackPlan.getDistance(day);
+            switch (format) {
+                case CSV:
+                    putNumber(buffer, day);
+                    buffer.put((byte) ',');
+                    putNumber(buffer, trackPlan.getOvernight(day - 1));
+                    buffer.put((byte) ',');
+                    putNumber(buffer, trackPlan.getOvernight(day));
+                    buffer.put((byte) ',');
+                    putNumber(buffer, distance);
+                    buffer.put((byte) '\n');
+                    break;
+                case BINARY:
+                    buffer.putInt(trackPlan.getOvernight(day));
+                    buffer.putLong(distance);
+                    break;
+                default:
+                    putNumber(buffer, day);
+                    buffer.put(TAG);
+                    putNumber(buffer, distance);
+                    buffer.put(KM);
+            }
+        }
+
+        if (format == Format.TEXT) {
+            if (buffer.remaining() < MAX_RECORD_SIZE)
+                flush(channel, buffer);
+            buffer.put(MAXIMUM);
+            putNumber(buffer, longestDailyTrack);
+            buffer.put(KM);
+        }
+        flush(channel, buffer);
+    }
+
+    // decimal digits of a number >= 0, as Long.toString() would give them
+    private static void putNumber(ByteBuffer buffer, long number) {
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int position = buffer.position() + digits;
+        for (int i = position - 1; i >= buffer.position(); i--) {
+            buffer.put(i, (byte) ('0' + number % 10));
+            number /= 10;
+        }
+        buffer.position(position);
+    }
+
+    private static void flush(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
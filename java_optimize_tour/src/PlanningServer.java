@@ -0,0 +1,196 @@
+package com.cipsoft.candidate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Long running planning service, so a plan does not need to start a JVM.
+ *
+ * POST /plan?solver=heuristic|exact|parallel|multistart|auto&format=text|csv|binary
+ * with tour data in the format of a text tour file as body
+ * returns the same result Main prints for that tour, see PlanWriter for the formats.
+ * Malformed tour data is answered with 400 and the message of the parser,
+ * tour data larger than MAX_BODY_BYTES with 413.
+ *
+ * GET /cache returns the number of cached plans and the hit, miss and eviction counters of the PlanCache.
+ *
+ * Every request runs on its own virtual thread if the JVM offers them (Java 21+),
+ * otherwise on a cached pool of platform threads.
+ * The solvers are stateless and shared by all requests.
+ * Repeated tours are answered from a PlanCache shared by all solvers.
+ */
+public class PlanningServer {
+
+    // content type of each PlanWriter.Format
+    private static final String[] CONTENT_TYPES = {
+            "text/plain; charset=utf-8", "text/csv; charset=utf-8", "application/octet-stream"};
+
+    /** Plans kept for repeated tours */
+    static final int CACHE_ENTRIES = 4096;
+    /** Largest tour data accepted; about 32 million stages */
+    static final int MAX_BODY_BYTES = 1 << 26;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // one stateless solver instance per name
+    private final Map<String, TourSolver> solvers = new HashMap<>();
+    private final PlanCache cache = new PlanCache(CACHE_ENTRIES);
+
+    /**
+     * PlanningServer constructor. Binds to the loopback interface; call start() to accept requests.
+     * @param port The TCP port; 0 chooses a free one
+     * @throws IOException if the port cannot be bound
+     */
+    public PlanningServer(int port) throws IOException {
+        for (String name : new String[] {"heuristic", "exact", "parallel", "multistart", "auto"}) {
+            solvers.put(name, new CachingSolver(Main.createSolver(name), name, cache));
+        }
+        executor = newRequestExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/plan", this::handlePlan);
+        server.createContext("/cache", this::handleCache);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Executor starting a virtual thread per request if available
+     * @return The executor for the requests
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            // Java 21+; looked up by reflection, so the server still runs on older JVMs
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /** Starts accepting requests */
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests and waits at most one second for running ones */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /** @return The cache of the plans, e.g. to read its counters */
+    public PlanCache getCache() {
+        return cache;
+    }
+
+    /** @return The port the server listens on */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handlePlan(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "Use POST with the tour data as body.\n");
+                return;
+            }
+            TourSolver solver = solvers.get(queryParameter(exchange, "solver", "heuristic"));
+            if (solver == null) {
+                respond(exchange, 400, "Unknown solver. Use 'heuristic', 'exact', 'parallel', 'multistart' or 'auto'.\n");
+                return;
+            }
+
+            PlanWriter.Format format;
+            try {
+                format = PlanWriter.Format.byName(queryParameter(exchange, "format", "text"));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "Unknown format. Use 'text', 'csv' or 'binary'.\n");
+                return;
+            }
+
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                respond(exchange, 413, String.format("The tour data is larger than %d bytes.\n", MAX_BODY_BYTES));
+                return;
+            }
+            FileParser tourInfo = new MappedFileParser(ByteBuffer.wrap(body), "request");
+            if (tourInfo.availableOvernightDistances.length == 0) {
+                respond(exchange, 400, tourInfo.errorMessage + "\n");
+                return;
+            }
+
+            ByteArrayOutputStream plan = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(plan, false, StandardCharsets.UTF_8);
+            Main.planTour(new ArrayPrefixSums(tourInfo.availableOvernightDistances), tourInfo.days, solver, "array",
+                    format, out);
+            out.flush();
+            respond(exchange, 200, plan.toByteArray(), CONTENT_TYPES[format.ordinal()]);
+        } catch (RuntimeException e) {
+            respond(exchange, 500, String.format("Failed planning. (%s)\n", e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleCache(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 405, "Use GET.\n");
+                return;
+            }
+            respond(exchange, 200, cache.getSummary() + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // the body of the request; null if it is larger than MAX_BODY_BYTES
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        try (InputStream body = exchange.getRequestBody()) {
+            if ((contentLength != null) && (Long.parseLong(contentLength.trim()) > MAX_BODY_BYTES))
+                return null;
+            // chunked bodies have no length, so one byte more than allowed is read at most
+            byte[] data = body.readNBytes(MAX_BODY_BYTES + 1);
+            return (data.length > MAX_BODY_BYTES) ? null : data;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // value of a parameter of the request's query string
+    private static String queryParameter(HttpExchange exchange, String name, String defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "="))
+                    return parameter.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        respond(exchange, status, text.getBytes(StandardCharsets.UTF_8), CONTENT_TYPES[PlanWriter.Format.TEXT.ordinal()]);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body, String contentType) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
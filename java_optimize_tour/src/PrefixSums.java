@@ -0,0 +1,43 @@
+package com.cipsoft.candidate;
+
+/**
+ * Absolute distance of each stage from the tour start point.
+ * Entry 0 is the tour start, entry i the overnight after stage i.
+ * The values never decrease.
+ * Distances are longs, so a tour may be longer than 2^31; stations are numbered by int.
+ */
+public interface PrefixSums {
+
+    /**
+     * @param stationNr number of the stage used for overnight; 0 is the tour start
+     * @return Distance of the overnight from the tour start
+     */
+    long get(int stationNr);
+
+    /**
+     * @return Number of entries; the number of stages + 1
+     */
+    int size();
+
+    /**
+     * @return The distance of the longest stage
+     */
+    default long getLongestStage() {
+        long longest = 0;
+        for (int i = 1; i < size(); i++) {
+            longest = Math.max(longest, get(i) - get(i - 1));
+        }
+        return longest;
+    }
+
+    /**
+     * Distances between consecutive overnights, e.g. of the days of a tour
+     * @param stations Ascending numbers of overnights
+     * @param distances Receives [i] = distance from stations[i - 1] to stations[i] for i >= 1; [0] is not changed
+     */
+    default void getDistances(int[] stations, long[] distances) {
+        for (int i = 1; i < stations.length; i++) {
+            distances[i] = get(stations[i]) - get(stations[i - 1]);
+        }
+    }
+}
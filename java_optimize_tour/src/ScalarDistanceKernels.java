@@ -0,0 +1,28 @@
+package com.cipsoft.candidate;
+
+/**
+ * DistanceKernels as plain loops; used if the Vector API is not available
+ */
+public class ScalarDistanceKernels extends DistanceKernels {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public long longestStage(long[] overnights) {
+        long longest = 0;
+        for (int i = 1; i < overnights.length; i++) {
+            longest = Math.max(longest, overnights[i] - overnights[i - 1]);
+        }
+        return longest;
+    }
+
+    @Override
+    public void distances(long[] overnights, int[] stations, long[] distances) {
+        for (int i = 1; i < stations.length; i++) {
+            distances[i] = overnights[stations[i]] - overnights[stations[i - 1]];
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.cipsoft.candidate;
+
+/**
+ * A route planned once and shared by any number of threads, for hikers walking only a part of it.
+ * Any range of stations is planned in any number of days against the same prefix sums,
+ * without slicing the distances or building a TrackPlan per request.
+ *
+ * The minimal maximum day trip of a range is found by bisection like ExactSolver,
+ * but each candidate is checked by galloping from overnight to overnight,
+ * which needs O(days * log(stages per day)) time instead of visiting every stage of the range.
+ * A query allocates nothing; the overnights of a plan are written to an array of the caller.
+ * The route is immutable, so concurrent queries share no state and scale with the cores.
+ */
+public final class SharedRoute {
+
+    private final PrefixSums overnights;
+    private final int stages;
+
+    /**
+     * @param overnights absolute distance of each stage from route start point; not changed afterwards
+     */
+    public SharedRoute(PrefixSums overnights) {
+        this.overnights = overnights;
+        this.stages = overnights.size() - 1;
+    }
+
+    /**
+     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     */
+    public SharedRoute(int[] availableOvernightDistances) {
+        this(new ArrayPrefixSums(availableOvernightDistances));
+    }
+
+    /** @return Number of stages of the whole route */
+    public int getStages() {
+        return stages;
+    }
+
+    /**
+     * @param fromStation Number of an overnight; 0 is the route start
+     * @param toStation Number of a later overnight
+     * @return The distance between both overnights
+     */
+    public long getDistance(int fromStation, int toStation) {
+        return overnights.get(toStation) - overnights.get(fromStation);
+    }
+
+    /**
+     * Bisection of the maximum daily distance for a part of the route
+     * @param fromStation Number of the overnight the hike begins at; 0 is the route start
+     * @param toStation Number of the overnight the hike ends at; after fromStation
+     * @param days The days the hike shall be finished in; at most the stages between both overnights
+     * @return The smallest possible maximum day trip
+     */
+    public long findLongestDailyTrack(int fromStation, int toStation, int days) {
+        checkRange(fromStation, toStation, days);
+
+        // no day can be shorter than the average day trip; walking all in one day is always possible
+        long length = getDistance(fromStation, toStation);
+        long lower = (length + days - 1) / days;
+        long upper = length;
+        while (lower < upper) {
+            long candidate = lower + (upper - lower) / 2;
+            if (countDays(fromStation, toStation, candidate, days) <= days)
+                upper = candidate;
+            else
+                lower = candidate + 1;
+        }
+        return lower;
+    }
+
+    /**
+     * Plans a part of the route with the minimal maximum day trip.
+     * Walks as far as possible every day, but leaves at least one stage for each remaining day.
+     * @param fromStation Number of the overnight the hike begins at; 0 is the route start
+     * @param toStation Number of the overnight the hike ends at; after fromStation
+     * @param days The days the hike shall be finished in; at most the stages between both overnights
+     * @param plan '0' based; receives the overnight of every day: [0] = fromStation, [days] = toStation.
+     *             Needs at least days + 1 entries and may be reused for the next query.
+     * @return The maximum day trip of the plan
+     */
+    public long plan(int fromStation, int toStation, int days, int[] plan) {
+        if (plan.length <= days)
+            throw new IllegalArgumentException(String.format("The plan needs %d entries but has %d.", days + 1, plan.length));
+        long longestDailyTrack = findLongestDailyTrack(fromStation, toStation, days);
+
+        int tripBegin = fromStation;
+        plan[0] = fromStation;
+        for (int day = 1; day < days; day++) {
+            int lastPossible = toStation - (days - day);
+            int tripEnd = farthestOvernight(tripBegin, toStation, overnights.get(tripBegin) + longestDailyTrack);
+            tripEnd = Math.min(Math.max(tripEnd, tripBegin + 1), lastPossible);
+            plan[day] = tripEnd;
+            tripBegin = tripEnd;
+        }
+        plan[days] = toStation;
+        return longestDailyTrack;
+    }
+
+    /**
+     * Counts the days needed for a part of the route without walking farther than maxDistance on any day.
+     * Each day walks as far as possible.
+     * @param fromStation Number of the overnight the hike begins at; 0 is the route start
+     * @param toStation Number of the overnight the hike ends at; at least fromStation
+     * @param maxDistance Candidate for the maximum day trip
+     * @param limit Counting stops as soon as more than limit days are needed
+     * @return The number of days needed; limit + 1 if more than limit days are needed
+     *         or a stage is longer than maxDistance
+     */
+    public int countDays(int fromStation, int toStation, long maxDistance, int limit) {
+        int neededDays = 0;
+        int tripBegin = fromStation;
+        while (tripBegin < toStation) {
+            int tripEnd = farthestOvernight(tripBegin, toStation, overnights.get(tripBegin) + maxDistance);
+            // the next stage is longer than maxDistance
+            if ((tripEnd == tripBegin) || (neededDays == limit))
+                return limit + 1;
+            tripBegin = tripEnd;
+            neededDays++;
+        }
+        return neededDays;
+    }
+
+    // last overnight up to toStation not farther than limit from the route start; at least from.
+    // Gallops in doubling steps first, so a short day needs only a few probes.
+    private int farthestOvernight(int from, int toStation, long limit) {
+        int lower = from;
+        int step = 1;
+        while ((step <= toStation - lower) && (overnights.get(lower + step) <= limit)) {
+            lower += step;
+            step <<= 1;
+        }
+        int upper = (int) Math.min((long) lower + step - 1, toStation);
+        while (lower < upper) {
+            int middle = (lower + upper + 1) >>> 1;
+            if (overnights.get(middle) <= limit)
+                lower = middle;
+            else
+                upper = middle - 1;
+        }
+        return lower;
+    }
+
+    private void checkRange(int fromStation, int toStation, int days) {
+        if ((fromStation < 0) || (toStation > stages) || (fromStation >= toStation))
+            throw new IllegalArgumentException(String.format("Stations %d to %d are no part of the route with %d stages.",
+                    fromStation, toStation, stages));
+        if ((days < 1) || (days > toStation - fromStation))
+            throw new IllegalArgumentException(String.format("%d days do not fit %d stages.", days, toStation - fromStation));
+    }
+}
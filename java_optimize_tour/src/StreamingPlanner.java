@@ -0,0 +1,179 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Plans a tour of unknown length for a known maximum day trip while its stages arrive one by one,
+ * e.g. piped from a generator or a GPS export.
+ * Every day walks as far as possible, which needs the fewest days, like ExactSolver.countDays().
+ * A day is reported as soon as the next stage does not fit into it,
+ * so only the current day is kept and the memory does not grow with the stages.
+ */
+public class StreamingPlanner {
+
+    /**
+     * Receives the days of the tour as soon as they are fixed
+     */
+    public interface DayListener {
+
+        /**
+         * @param day Number of the day, starting with 1
+         * @param fromStation The overnight the day begins at; 0 is the tour start
+         * @param toStation The overnight the day ends at
+         * @param distance The distance of the day
+         */
+        void dayPlanned(long day, long fromStation, long toStation, long distance);
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final long maxDistance;
+    private final DayListener listener;
+    private long days = 0;
+    private long stages = 0;
+    // the day in progress
+    private long tripBegin = 0;
+    private long dayDistance = 0;
+    private long longestDailyTrack = 0;
+
+    /**
+     * StreamingPlanner constructor
+     * @param maxDistance Maximum distance of a day trip
+     * @param listener Receives the days
+     */
+    public StreamingPlanner(long maxDistance, DayListener listener) {
+        this.maxDistance = maxDistance;
+        this.listener = listener;
+    }
+
+    /**
+     * Adds the next stage; reports the day in progress if the stage does not fit into it
+     * @param distance Distance of the stage
+     * @throws IllegalArgumentException if the distance is < 1 or longer than the maximum day trip
+     */
+    public void addStage(long distance) {
+        if (distance < 1)
+            throw new IllegalArgumentException(String.format("Stage %d: Distance has to be >= 1!", stages + 1));
+        if (distance > maxDistance)
+            throw new IllegalArgumentException(String.format("Stage %d: %d km is longer than the maximum of %d km.",
+                    stages + 1, distance, maxDistance));
+        if (dayDistance + distance > maxDistance)
+            endDay();
+        dayDistance += distance;
+        stages++;
+    }
+
+    /**
+     * Reports the last day; call once after the last stage
+     * @return The number of days needed
+     */
+    public long finish() {
+        if (stages > tripBegin)
+            endDay();
+        return days;
+    }
+
+    private void endDay() {
+        days++;
+        longestDailyTrack = Math.max(longestDailyTrack, dayDistance);
+        listener.dayPlanned(days, tripBegin, stages, dayDistance);
+        tripBegin = stages;
+        dayDistance = 0;
+    }
+
+    /** @return Number of stages added so far */
+    public long getStages() {
+        return stages;
+    }
+
+    /** @return The longest day reported so far */
+    public long getLongestDailyTrack() {
+        return longestDailyTrack;
+    }
+
+    /**
+     * Reads whitespace separated stage distances until the end of the channel and plans them
+     * @param channel The source of the stages; not closed
+     * @param header True: the data begins with the number of stages and days like a text tour file;
+     *               the number of stages has to match the stages read, the days are ignored.
+     *               False: every number is a stage; the end of the channel ends the tour
+     * @param name name of the source used in error messages
+     * @return The number of days needed
+     * @throws IOException if reading fails, a token is no number, a stage is too long
+     *                     or the stages do not match the header
+     */
+    public long plan(ReadableByteChannel channel, boolean header, String name) throws IOException {
+        String msgFormatError = "Failed reading number in '%s' line %d.";
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        long line = 1;
+        long numbers = 0;
+        long announcedStages = 0;
+        while (true) {
+            // skip whitespace
+            int c = nextByte(channel, buffer);
+            while (isWhitespace(c)) {
+                if (c == '\n')
+                    line++;
+                c = nextByte(channel, buffer);
+            }
+            if (c < 0)
+                break;
+            numbers++;
+
+            // decimal digits up to the next whitespace
+            long number = 0;
+            int digits = 0;
+            for (; (c >= '0') && (c <= '9'); c = nextByte(channel, buffer)) {
+                number = 10 * number + (c - '0');
+                if (++digits > 18)
+                    throw new IOException(String.format(msgFormatError, name, line));
+            }
+            if ((digits == 0) || ((c >= 0) && !isWhitespace(c)))
+                throw new IOException(String.format(msgFormatError, name, line));
+
+            if (header && (numbers <= 2)) {
+                // do not accept zero stages or days
+                if (number == 0)
+                    throw new IOException(String.format(msgFormatError, name, line));
+                if (numbers == 1)
+                    announcedStages = number;
+            } else {
+                if (header && (stages == announcedStages))
+                    throw new IOException(String.format("'%s' (line %d): More than the %d stages of the header.",
+                            name, line, announcedStages));
+                try {
+                    addStage(number);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(String.format("'%s' (line %d): %s", name, line, e.getMessage()));
+                }
+            }
+            if (c == '\n')
+                line++;
+        }
+        if (header && (numbers < 2))
+            throw new IOException(String.format(msgFormatError, name, line));
+        if (header && (stages < announcedStages))
+            throw new IOException(String.format("'%s': The header announces %d stages, but %d were read.",
+                    name, announcedStages, stages));
+        return finish();
+    }
+
+    private static boolean isWhitespace(int c) {
+        return (c == ' ') || (c == '\n') || (c == '\r') || (c == '\t') || (c == '\f') || (c == 0x0B);
+    }
+
+    // next byte of the channel; -1 at its end
+    private static int nextByte(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read < 0)
+                return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+}
@@ -0,0 +1,60 @@
+package com.cipsoft.candidate;
+
+import java.io.IOException;
+
+/**
+ * Converts a text tour file as read by FileParser into a BinaryTourFile,
+ * or checks every distance and prefix sum of a BinaryTourFile from elsewhere.
+ * Usage: TourConverter input.txt output.tour [--varint] [--no-prefix-sums]
+ *        TourConverter --verify tour.tour
+ */
+public class TourConverter {
+
+    public static void main(String[] args) {
+        String input = null;
+        String output = null;
+        boolean varint = false;
+        boolean withPrefixSums = true;
+        boolean verify = false;
+
+        for (String arg : args) {
+            if (arg.equals("--verify"))
+                verify = true;
+            else if (arg.equals("--varint"))
+                varint = true;
+            else if (arg.equals("--no-prefix-sums"))
+                withPrefixSums = false;
+            else if (input == null)
+                input = arg;
+            else if (output == null)
+                output = arg;
+        }
+        if (verify && (input != null) && (output == null)) {
+            BinaryTourFile tourFile = new BinaryTourFile(input, true);
+            if (tourFile.errorMessage != null)
+                System.out.println(tourFile.errorMessage);
+            else
+                System.out.printf("'%s': %d stages, %d days, verified.\n", input, tourFile.stages, tourFile.days);
+            return;
+        }
+        if ((input == null) || (output == null) || verify) {
+            System.out.println("Usage: TourConverter input.txt output" + BinaryTourFile.EXTENSION
+                    + " [--varint] [--no-prefix-sums]");
+            System.out.println("       TourConverter --verify tour" + BinaryTourFile.EXTENSION);
+            return;
+        }
+
+        FileParser tourInfo = new MappedFileParser(input);
+        if (tourInfo.errorMessage != null)
+            System.out.println(tourInfo.errorMessage);
+        // no data is loaded, so there is nothing to convert
+        if (tourInfo.availableOvernightDistances.length == 0)
+            return;
+
+        try {
+            BinaryTourFile.write(output, tourInfo.availableOvernightDistances, tourInfo.days, varint, withPrefixSums);
+        } catch (IOException e) {
+            System.out.printf("[TourConverter]: Failed writing '%s'. (%s)\n", output, e.getMessage());
+        }
+    }
+}
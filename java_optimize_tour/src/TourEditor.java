@@ -0,0 +1,104 @@
+package com.cipsoft.candidate;
+
+/**
+ * Keeps an optimized tour up to date while the distances of its stages are edited,
+ * e.g. because a trail section is closed or re-measured.
+ *
+ * Changing a distance updates the FenwickPrefixSums and recalculates only the days walking the changed stages.
+ * Then the heuristic optimizer repairs a sub tour around these days.
+ * The sub tour is doubled as long as that shortens its longest day,
+ * so a small change only touches the neighbouring days instead of the whole tour.
+ */
+public class TourEditor {
+
+    // days before and after the changed days which are repaired first
+    private static final int REPAIR_RADIUS = 8;
+
+    /** The optimized tour; changed in place by every edit */
+    public TrackPlan trackPlan = null;
+
+    private final FenwickPrefixSums availableOvernights;
+    private final HeuristicOptimizer optimizer;
+
+    /**
+     * TourEditor constructor. Optimizes the whole tour once by the ExactSolver,
+     * which is much faster than the heuristic on large tours.
+     * @param availableOvernightDistances Distances between every stage; not changed by the edits
+     * @param days The number of days the tour shall last; at most the number of stages
+     */
+    public TourEditor(int[] availableOvernightDistances, int days) {
+        availableOvernights = new FenwickPrefixSums(availableOvernightDistances);
+        trackPlan = new ArrayTrackPlan(availableOvernights, days);
+        new ExactSolver().solve(trackPlan);
+        optimizer = new HeuristicOptimizer(trackPlan);
+    }
+
+    /**
+     * Changes the distance of one stage and repairs the tour
+     * @param stage Number of the stage, beginning with 1
+     * @param distance New distance of the stage; has to be >= 1
+     */
+    public void setStageDistance(int stage, int distance) {
+        setStageDistances(new int[] {stage}, new int[] {distance});
+    }
+
+    /**
+     * Changes the distances of several stages and repairs the tour once
+     * @param stages Numbers of the stages, beginning with 1
+     * @param distances New distance of each stage; have to be >= 1
+     */
+    public void setStageDistances(int[] stages, int[] distances) {
+        if (stages.length != distances.length)
+            throw new IllegalArgumentException("Every stage needs a distance.");
+        for (int i = 0; i < stages.length; i++) {
+            if ((stages[i] < 1) || (stages[i] >= availableOvernights.size()))
+                throw new IllegalArgumentException(String.format("There is no stage %d.", stages[i]));
+            if (distances[i] < 1)
+                throw new IllegalArgumentException("Distance has to be >= 1!");
+        }
+        if (stages.length == 0)
+            return;
+
+        int firstChangedDay = trackPlan.days;
+        int lastChangedDay = 1;
+        for (int i = 0; i < stages.length; i++) {
+            availableOvernights.setStageDistance(stages[i], distances[i]);
+            int day = trackPlan.stageDistanceChanged(stages[i]);
+            firstChangedDay = Math.min(firstChangedDay, day);
+            lastChangedDay = Math.max(lastChangedDay, day);
+        }
+        // the changed distances are the new state undo returns to
+        trackPlan.commitShift();
+
+        repair(firstChangedDay, lastChangedDay);
+    }
+
+    /**
+     * @param stage Number of the stage, beginning with 1
+     * @return Current distance of the stage
+     */
+    public long getStageDistance(int stage) {
+        return availableOvernights.getStageDistance(stage);
+    }
+
+    // optimizes growing sub tours around the changed days
+    private void repair(int firstChangedDay, int lastChangedDay) {
+        int radius = REPAIR_RADIUS;
+        int fromDay = Math.max(1, firstChangedDay - radius);
+        int toDay = Math.min(trackPlan.days, lastChangedDay + radius);
+        optimizer.Optimize(fromDay, toDay);
+        long longestDailyTrack = trackPlan.getLongestDailyTrack(fromDay, toDay);
+
+        while ((fromDay > 1) || (toDay < trackPlan.days)) {
+            radius *= 2;
+            fromDay = Math.max(1, firstChangedDay - radius);
+            toDay = Math.min(trackPlan.days, lastChangedDay + radius);
+            optimizer.Optimize(fromDay, toDay);
+            long repaired = trackPlan.getLongestDailyTrack(fromDay, toDay);
+            // a larger sub tour does not help any more
+            if (repaired >= longestDailyTrack)
+                break;
+            longestDailyTrack = repaired;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.cipsoft.candidate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates synthetic tours for benchmarks and tests.
+ * The same seed always generates the same tour.
+ * Usage: TourGenerator stages days uniform|heavy-tailed|giant-stage seed output.txt
+ */
+public class TourGenerator {
+
+    /**
+     * Distribution of the stage distances
+     */
+    public enum Distribution {
+        /** All distances between 1 and 2 * mean */
+        UNIFORM,
+        /** Pareto distributed distances: mostly short stages, few very long ones */
+        HEAVY_TAILED,
+        /** Uniform distances, but one stage is as long as all others together */
+        GIANT_STAGE;
+
+        /**
+         * @param name 'uniform', 'heavy-tailed' or 'giant-stage'
+         * @return The distribution of the given name
+         */
+        public static Distribution byName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    /** Average stage distance of the generated tours */
+    public static final int MEAN_DISTANCE = 20;
+
+    private final Random random;
+    private final Distribution distribution;
+
+    /**
+     * TourGenerator constructor
+     * @param distribution Distribution of the stage distances
+     * @param seed Seed of the random numbers
+     */
+    public TourGenerator(Distribution distribution, long seed) {
+        this.distribution = distribution;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Generates the distances of a tour
+     * @param stages Number of stages
+     * @return Distances between every stage; all >= 1
+     */
+    public int[] generate(int stages) {
+        int[] distances = new int[stages];
+        switch (distribution) {
+            case HEAVY_TAILED:
+                // Pareto distribution with alpha = 1.5, capped to keep the tour length within int
+                for (int i = 0; i < stages; i++) {
+                    double pareto = Math.pow(1.0 - random.nextDouble(), -1.0 / 1.5);
+                    distances[i] = (int) Math.min(MEAN_DISTANCE / 3.0 * pareto, 1000.0 * MEAN_DISTANCE);
+                    if (distances[i] < 1) distances[i] = 1;
+                }
+                break;
+            case GIANT_STAGE:
+                long sum = 0;
+                for (int i = 0; i < stages; i++) {
+                    distances[i] = 1 + random.nextInt(2 * MEAN_DISTANCE - 1);
+                    sum += distances[i];
+                }
+                distances[random.nextInt(stages)] = (int) Math.min(sum, Integer.MAX_VALUE / 2);
+                break;
+            default:
+                for (int i = 0; i < stages; i++) {
+                    distances[i] = 1 + random.nextInt(2 * MEAN_DISTANCE - 1);
+                }
+        }
+        return distances;
+    }
+
+    /**
+     * Writes a tour in the text format read by FileParser
+     * @param filepath The file to be written
+     * @param availableOvernightDistances Distances between every stage
+     * @param days The number of days the tour shall last
+     * @throws IOException if writing fails
+     */
+    public static void write(String filepath, int[] availableOvernightDistances, int days) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filepath), StandardCharsets.US_ASCII)) {
+            writer.write(Integer.toString(availableOvernightDistances.length));
+            writer.newLine();
+            writer.write(Integer.toString(days));
+            writer.newLine();
+            for (int distance : availableOvernightDistances) {
+                writer.write(Integer.toString(distance));
+                writer.newLine();
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.out.println("Usage: TourGenerator stages days uniform|heavy-tailed|giant-stage seed output.txt");
+            return;
+        }
+        try {
+            int stages = Integer.parseInt(args[0]);
+            int days = Integer.parseInt(args[1]);
+            Distribution distribution = Distribution.byName(args[2]);
+            long seed = Long.parseLong(args[3]);
+            write(args[4], new TourGenerator(distribution, seed).generate(stages), days);
+        } catch (IllegalArgumentException e) {
+            System.out.printf("[TourGenerator]: Invalid argument. (%s)\n", e.getMessage());
+        } catch (IOException e) {
+            System.out.printf("[TourGenerator]: Failed writing '%s'. (%s)\n", args[4], e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.cipsoft.candidate;
+
+/**
+ * Common interface of all algorithms which distribute the overnights of a tour
+ * in order to minimize the maximum day trip.
+ * Implementations do not keep any state between two calls,
+ * so one instance may be used for any number of tours.
+ */
+public interface TourSolver {
+
+    /**
+     * Distributes the overnights of the tour.
+     * @param trackPlan The tour; its overnights are changed in place and committed afterwards
+     */
+    void solve(TrackPlan trackPlan);
+}
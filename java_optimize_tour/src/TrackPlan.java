@@ -1,137 +1,176 @@
 package com.cipsoft.candidate;
 
+import java.util.stream.IntStream;
 
 /**
  * This class represents the data structure of the tour partitioned into several days.
  * It offers methods for manipulation used by the optimization algorithm.
+ * The days are stored by the subclasses, see LinkedTrackPlan and ArrayTrackPlan.
  */
-public class TrackPlan {
+public abstract class TrackPlan {
 
     /** Number of days in which the tour shall be finished  */
     public int days = 0;
 
 
     // absolute distance of each stage from tour start point
-    protected int[] availableOvernights;
-    // '1' based array which makes it more human readable and
-    // less error prone while programming; [0] is a dummy element;
-    protected HikingDay[] hikingDays;
-    // backup array used by undo function
-    protected HikingDay[] hikingDaysUndo;
+    protected PrefixSums availableOvernights;
     // the distance between to stages if day trips where equal distributed
     // and overnights could occur everywhere
     protected double averageDayTrip = 0;
+    // longest day of the tour and of sub tours; has to be updated on every distance change
+    protected LongestDayIndex longestDays;
+    // days whose distance changed since the last commit; empty if changedFromDay > changedToDay
+    protected int changedFromDay = Integer.MAX_VALUE;
+    protected int changedToDay = 0;
 
     /**
      * TrackPlan constructor
-     * Calculates a '1st Guess' of optimal distributed overnights when called
-     * @param availableOvernightDistances as read from FileParser; Distances between every stage
+     * Uses the absolute distances of the overnights as they are, e.g. mapped from a BinaryTourFile.
+     * The subclasses place the days according to firstGuess().
+     * @param availableOvernights Absolute distance of each stage from tour start point
      * @param days The number of days the tour shall last
      */
-    public TrackPlan(int[] availableOvernightDistances, int days) {
-        // construct an array that contains the absolute from every available overnight to the starting point
-        availableOvernights = new int[availableOvernightDistances.length + 1];
-        availableOvernights[0] = 0;
-        for (int i = 0; i < availableOvernightDistances.length; i++) {
-            availableOvernights[i + 1] = availableOvernights[i] + availableOvernightDistances[i];
-        }
+    protected TrackPlan(PrefixSums availableOvernights, int days) {
+        this.availableOvernights = availableOvernights;
         this.days = days;
-        // generate '1' based arrays and dummy element 0
-        hikingDays = new HikingDay[days + 1];
-        hikingDaysUndo = new HikingDay[days + 1];
-        hikingDays[0] = new HikingDay();
-        hikingDays[0].tripBegin = new OvernightStay(0);
-        hikingDays[0].tripEnd = new OvernightStay(0);
-        hikingDays[0].tripDistance = 0;
-        hikingDaysUndo[0] = new HikingDay();
-        hikingDaysUndo[0].tripBegin = new OvernightStay(0);
-        hikingDaysUndo[0].tripEnd = new OvernightStay(0);
-        hikingDaysUndo[0].tripDistance = 0;
 
         // The optimal distance, if an overnight could be chosen everywhere.
         // This corresponds to the most relaxed state of this system.
-        averageDayTrip = ((double) availableOvernights[availableOvernights.length - 1]) / (double) days;
-
-        // construct first guess of overnight distribution:
-        // The entirely relaxed state of the system is fitted to
-        // the 'quantized'/fixed overnight places.
-        // This is managed by finding the nearest existing overnight compared to the optimal overnight position.  
-        {
-            double optTrip = averageDayTrip; // optimal trip distance
-            double mismatch = 0;
-            int remainingStages = availableOvernights.length;
-            // set prevmismatch larger than possible mismatch between days
-            // this is the starting value
-            double prevmismatch = averageDayTrip + 1.0;
-            int i = 1;
-
-            // find the best overnights
-            for (int day = 1; day <= days; i++) {
-
-                // mismatch of optimal trip distance per day and the current overnight opportunity
-                if (i <  availableOvernights.length)
-                    mismatch = Math.abs(((double) availableOvernights[i]) - optTrip);
-
-                // last day ends where tour ends
-                if (day == days)
-                    i = availableOvernights.length; // last stage +1
-
-                remainingStages--;
-                // we have passed the nearest stage or begin the last day
-                if ((mismatch > prevmismatch) || (day == days) || !((days-day) < remainingStages)) {
-                    hikingDays[day] = new HikingDay();
-                    hikingDays[day].tripBegin = hikingDays[day - 1].tripEnd;
-                    hikingDays[day].tripEnd = new OvernightStay(i - 1);
-                    hikingDays[day].recalcDistance();
-                    hikingDaysUndo[day] = new HikingDay();
-                    hikingDaysUndo[day].tripBegin = hikingDaysUndo[day - 1].tripEnd;
-                    hikingDaysUndo[day].tripEnd = new OvernightStay(i - 1);
-                    hikingDaysUndo[day].recalcDistance();
-                    optTrip += averageDayTrip;
-                    prevmismatch = averageDayTrip + 1.0;
-                    day++;
-                } else prevmismatch = mismatch;
-            } // for
-
-        } // 1st guess block
+        averageDayTrip = ((double) availableOvernights.get(availableOvernights.size() - 1)) / (double) days;
     }
 
-
     /**
-     * wrapper for stationNr in order to let day1's end and day2's begin point to the same stationNr
-     * even if changed independently, so the days build a chain where each trackEnd is connected
-     * to the trackBegin of the following day
+     * Calculates a '1st Guess' of optimal distributed overnights.
+     * Tours of at least ArrayPrefixSums.PARALLEL_THRESHOLD stages are guessed by parallelFirstGuess(),
+     * which finds the same overnights.
+     * @return '1' based array containing the stage number (in availableOvernights)
+     *         used for overnight at the end of each day; [0] is the tour start
      */
-    protected class OvernightStay {
-
-        /**  */
-        public int stationNr;
+    protected int[] firstGuess() {
+        if (availableOvernights.size() > ArrayPrefixSums.PARALLEL_THRESHOLD)
+            return parallelFirstGuess();
+        return guessOvernights(null);
+    }
 
-        public int getStageDistance() {
-            return availableOvernights[stationNr];
+    /**
+     * Calculates the same '1st Guess' as the sequential firstGuess(), but the search of each day
+     * runs on all cores: The last overnight before the optimal position of every day is found by bisection.
+     * The sequential pass then starts each day's search there instead of walking every stage.
+     * @return '1' based array containing the stage number (in availableOvernights)
+     *         used for overnight at the end of each day; [0] is the tour start
+     */
+    protected int[] parallelFirstGuess() {
+        // the optimal positions added up exactly like guessOvernights() does
+        double[] optimalOvernights = new double[days + 1];
+        double optTrip = 0;
+        for (int day = 1; day <= days; day++) {
+            optTrip += averageDayTrip;
+            optimalOvernights[day] = optTrip;
         }
 
-        /**
-         * Constructor
-         * @param stationNr number of stage (in availableOvernights) used for overnight
-         */
-        public OvernightStay(int stationNr) {
-            this.stationNr = stationNr;
+        int[] searchFrom = new int[days + 1];
+        IntStream.range(1, days).parallel()
+                .forEach(day -> searchFrom[day] = lastOvernightBefore(optimalOvernights[day]));
+        return guessOvernights(searchFrom);
+    }
+
+    // bisection for the last overnight not farther than the given position; compared as double like the mismatch
+    private int lastOvernightBefore(double position) {
+        int lower = 0;
+        int upper = availableOvernights.size() - 1;
+        while (lower < upper) {
+            int middle = (lower + upper + 1) >>> 1;
+            if ((double) availableOvernights.get(middle) <= position)
+                lower = middle;
+            else
+                upper = middle - 1;
         }
+        return lower;
     }
 
     /**
-     * One day of the tour
+     * The '1st Guess' of firstGuess()
+     * @param searchFrom null, or for each day an overnight the search may jump to;
+     *                   no overnight before it may be nearer to the optimal position of the day
+     * @return '1' based array containing the stage number (in availableOvernights)
+     *         used for overnight at the end of each day; [0] is the tour start
      */
-    protected class HikingDay {
-        public OvernightStay tripBegin;
-        public OvernightStay tripEnd;
-        public int tripDistance; // only recalculated on changes
+    private int[] guessOvernights(int[] searchFrom) {
+        int[] overnights = new int[days + 1];
+        overnights[0] = 0;
+
+        // construct first guess of overnight distribution:
+        // The entirely relaxed state of the system is fitted to
+        // the 'quantized'/fixed overnight places.
+        // This is managed by finding the nearest existing overnight compared to the optimal overnight position.
+        double optTrip = averageDayTrip; // optimal trip distance
+        double mismatch = 0;
+        int stations = availableOvernights.size();
+        int remainingStages = stations;
+        // set prevmismatch larger than possible mismatch between days
+        // this is the starting value
+        double prevmismatch = averageDayTrip + 1.0;
+        int i = 1;
+
+        // find the best overnights
+        for (int day = 1; day <= days; i++) {
+
+            // mismatch of optimal trip distance per day and the current overnight opportunity
+            if (i <  stations)
+                mismatch = Math.abs(((double) availableOvernights.get(i)) - optTrip);
+
+            // last day ends where tour ends
+            if (day == days)
+                i = stations; // last stage +1
+
+            remainingStages--;
+            // we have passed the nearest stage or begin the last day
+            if ((mismatch > prevmismatch) || (day == days) || !((days-day) < remainingStages)) {
+                overnights[day] = i - 1;
+                optTrip += averageDayTrip;
+                prevmismatch = averageDayTrip + 1.0;
+                day++;
+            } else {
+                prevmismatch = mismatch;
+
+                // the mismatch does not grow up to searchFrom, so continue there,
+                // but not beyond the stage where the remaining days force the overnight
+                if (searchFrom != null) {
+                    int next = Math.min(searchFrom[day], stations - days + day);
+                    if (next > i + 1) {
+                        i = next - 1;
+                        prevmismatch = Math.abs(((double) availableOvernights.get(i)) - optTrip);
+                        remainingStages = stations - i;
+                    }
+                }
+            }
+        } // for
 
-        public void recalcDistance() {
-            tripDistance = tripEnd.getStageDistance() - tripBegin.getStageDistance();
+        return overnights;
+    }
+
+    /**
+     * Builds the index of the longest day from the current day distances
+     */
+    protected void buildLongestDayIndex() {
+        longestDays = new LongestDayIndex(days);
+        for (int day = 1; day <= days; day++) {
+            longestDays.set(day, getDistance(day));
         }
+        longestDays.build();
+    }
 
+    /**
+     * Has to be called by the subclasses whenever a shift changes the distance of a day.
+     * Updates the index of the longest day and remembers the day for commit and undo.
+     * @param day The day number of the tour
+     * @param distance The new distance of the day
+     */
+    protected void distanceChanged(int day, long distance) {
+        longestDays.update(day, distance);
+        if (day < changedFromDay) changedFromDay = day;
+        if (day > changedToDay) changedToDay = day;
     }
 
     /**
@@ -139,8 +178,40 @@ public class TrackPlan {
      * @param day The day number of the tour
      * @return Distance between trip begin and end of a day
      */
-    public int getDistance(int day) {
-        return hikingDays[day].tripDistance;
+    public abstract long getDistance(int day);
+
+    /**
+     * @param day The day number of the tour; 0 is the tour start
+     * @return Number of the stage (in availableOvernights) used for overnight at the end of the day
+     */
+    public abstract int getOvernight(int day);
+
+    /**
+     * Recalculates the distance of a day from availableOvernights and updates the index of the longest day
+     * @param day The day number of the tour
+     */
+    protected abstract void recalcDistance(int day);
+
+    /**
+     * Has to be called after the distance of a stage was changed in availableOvernights.
+     * Recalculates the day walking the stage; call commitShift() after the last changed stage.
+     * @param stage Number of the stage; stage i leads from overnight i - 1 to overnight i
+     * @return The day walking the stage
+     */
+    public int stageDistanceChanged(int stage) {
+        // the first day ending at or after the stage
+        int lower = 1;
+        int upper = days;
+        while (lower < upper) {
+            int middle = (lower + upper) >>> 1;
+            if (getOvernight(middle) < stage)
+                lower = middle + 1;
+            else
+                upper = middle;
+        }
+        recalcDistance(lower);
+        averageDayTrip = ((double) availableOvernights.get(availableOvernights.size() - 1)) / (double) days;
+        return lower;
     }
 
     /**
@@ -148,25 +219,35 @@ public class TrackPlan {
      * @return The number of the day with the farthest trip
      */
     public int getLongestDay() {
-        int dist = 0;
-        int distMax = 0;
-        int longestDay = 0;
-        for (int day = 1; day <= days; day++) {
-            dist = getDistance(day);
-            if (dist > distMax) {
-                distMax = dist;
-                longestDay = day;
-            }
-        }
-        return longestDay;
+        return longestDays.getLongestDay();
+    }
+
+
+    /**
+     * No day can be shorter than the longest stage or the average day trip.
+     * Needs the time of PrefixSums.getLongestStage(), O(stages) at most.
+     * @return Lower bound of the farthest daily trip of any tour with this stages and days
+     */
+    public long getLowerBound() {
+        int stages = availableOvernights.size() - 1;
+        return Math.max(availableOvernights.getLongestStage(), (availableOvernights.get(stages) + days - 1) / days);
     }
 
+    /**
+     * Get the number of the day with the longest trip of a sub tour
+     * @param fromDay sub tour starting at this day
+     * @param toDay sub tour ending at this day
+     * @return The number of the day with the farthest trip
+     */
+    public int getLongestDay(int fromDay, int toDay) {
+        return longestDays.getLongestDay(fromDay, toDay);
+    }
 
     /**
      * Get the farthest daily trip of the tour
      * @return The farthest daily trip of the tour
      */
-    public int getLongestDailyTrack() {
+    public long getLongestDailyTrack() {
         return getLongestDailyTrack(1, days);
     }
 
@@ -176,14 +257,10 @@ public class TrackPlan {
      * @param toDay sub tour ending at this day
      * @return Trip of sub tour
      */
-    public int getLongestDailyTrack(int fromDay, int toDay) {
-        int dist = 0;
-        int distMax = 0;
-        for (int day = fromDay; day <= toDay; day++) {
-            dist = getDistance(day);
-            if (dist > distMax) distMax = dist;
-        }
-        return distMax;
+    public long getLongestDailyTrack(int fromDay, int toDay) {
+        if (fromDay > toDay)
+            return 0;
+        return getDistance(longestDays.getLongestDay(fromDay, toDay));
     }
 
     /**
@@ -192,18 +269,7 @@ public class TrackPlan {
      * @param day The day to be resized
      * @return True: if possible; False: if it is not possible to use nearer overnight
      */
-    public boolean trackEndEarlier(int day) {
-        int dBegin = hikingDays[day].tripBegin.stationNr;
-        int dEnd = hikingDays[day].tripEnd.stationNr;
-        // at least 2 stages so we can drop one
-        // and we are not on the last trip
-        if (((dEnd - dBegin) > 1) && (day < days)) {
-            hikingDays[day].tripEnd.stationNr--;
-            hikingDays[day].recalcDistance();
-            hikingDays[day + 1].recalcDistance();
-            return true;
-        } else return false;
-    }
+    public abstract boolean trackEndEarlier(int day);
 
     /**
      * In order to shorten the distance of a day trip shift its begin one step forward.
@@ -211,33 +277,33 @@ public class TrackPlan {
      * @param day The day to be resized
      * @return True: if possible; False: if it is not possible to use nearer overnight
      */
-    public boolean trackBeginLater(int day) {
-        int dBegin = hikingDays[day].tripBegin.stationNr;
-        int dEnd = hikingDays[day].tripEnd.stationNr;
-        // at least 2 stages so we can drop one
-        // and we are not at the beginning
-        if (((dEnd - dBegin) > 1) && (day > 1)) {
-            hikingDays[day].tripBegin.stationNr++;
-            hikingDays[day].recalcDistance();
-            hikingDays[day - 1].recalcDistance();
-            return true;
-        } else return false;
-    }
+    public abstract boolean trackBeginLater(int day);
+
+    /**
+     * Let a day end at the given overnight. The following day begins there.
+     * @param day The day to be resized
+     * @param stationNr Number of the stage (in availableOvernights) used for overnight
+     */
+    public abstract void setOvernight(int day, int stationNr);
 
 
     /**
      * Undo all shift operations since last commit.
+     * Only the days changed since then are restored.
      */
     public void undoShift() {
-        undoShift(1, days);
+        if (changedFromDay <= changedToDay)
+            undoShift(changedFromDay, changedToDay);
     }
 
     /**
      * Save all shift operations to the undo backup buffer.
      * The next undoShift() will restore exactly this state.
+     * Only the days changed since the last commit are saved.
      */
     public void commitShift() {
-        commitShift(1, days);
+        if (changedFromDay <= changedToDay)
+            commitShift(changedFromDay, changedToDay);
     }
 
     /**
@@ -246,11 +312,8 @@ public class TrackPlan {
      * @param toDay Sub tour end
      */
     public void undoShift(int fromDay, int toDay) {
-        hikingDays[fromDay].tripBegin.stationNr = hikingDaysUndo[fromDay].tripBegin.stationNr;
-        for (int i = fromDay; i <= toDay; i++) {
-            hikingDays[i].tripEnd.stationNr = hikingDaysUndo[i].tripEnd.stationNr;
-            hikingDays[i].tripDistance = hikingDaysUndo[i].tripDistance;
-        }
+        restoreDays(fromDay, toDay);
+        unchanged(fromDay, toDay);
     }
 
     /**
@@ -259,21 +322,47 @@ public class TrackPlan {
      * @param toDay Sub tour end
      */
     public void commitShift(int fromDay, int toDay) {
-        hikingDaysUndo[fromDay].tripBegin.stationNr = hikingDays[fromDay].tripBegin.stationNr;
-        for (int i = fromDay; i <= toDay; i++) {
-            hikingDaysUndo[i].tripEnd.stationNr = hikingDays[i].tripEnd.stationNr;
-            hikingDaysUndo[i].tripDistance = hikingDays[i].tripDistance;
+        backupDays(fromDay, toDay);
+        unchanged(fromDay, toDay);
+    }
+
+    // Shrinks the range of changed days after a sub tour was committed or restored.
+    // A sub tour in the middle of the range leaves it as it is,
+    // which only means that some equal days are copied once more.
+    private void unchanged(int fromDay, int toDay) {
+        if (fromDay <= changedFromDay && toDay >= changedToDay) {
+            changedFromDay = Integer.MAX_VALUE;
+            changedToDay = 0;
+        } else if (fromDay <= changedFromDay && toDay >= changedFromDay) {
+            changedFromDay = toDay + 1;
+        } else if (fromDay <= changedToDay && toDay >= changedToDay) {
+            changedToDay = fromDay - 1;
         }
     }
 
+    /**
+     * Copies the days of a sub tour and the begin of its first day from the undo backup buffer.
+     * Has to update the index of the longest day.
+     * @param fromDay Sub tour begin
+     * @param toDay Sub tour end
+     */
+    protected abstract void restoreDays(int fromDay, int toDay);
+
+    /**
+     * Copies the days of a sub tour and the begin of its first day to the undo backup buffer.
+     * @param fromDay Sub tour begin
+     * @param toDay Sub tour end
+     */
+    protected abstract void backupDays(int fromDay, int toDay);
+
     @Override
     public String toString() {
         StringBuilder txt = new StringBuilder();
         for (int day = 1; day <= days; day++) {
-            txt.append(String.format("%d. Tag: %d km\n", day, getDistance(day)));
+            txt.append(day).append(". Tag: ").append(getDistance(day)).append(" km\n");
         }
         txt.append("\n");
-        txt.append(String.format("Maximum: %d km\n", getLongestDailyTrack()));
+        txt.append("Maximum: ").append(getLongestDailyTrack()).append(" km\n");
         return txt.toString();
     }
 }
@@ -0,0 +1,62 @@
+package com.cipsoft.candidate;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * DistanceKernels using the incubating Vector API (jdk.incubator.vector).
+ * Processes as many longs at once as the widest vector of the CPU holds, e.g. 4 with AVX2;
+ * the remaining entries are processed one by one.
+ * Needs --add-modules jdk.incubator.vector to compile and to run.
+ */
+public class VectorDistanceKernels extends DistanceKernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * @throws UnsupportedOperationException if the CPU has no vectors of at least 2 longs
+     */
+    public VectorDistanceKernels() {
+        if (SPECIES.length() < 2)
+            throw new UnsupportedOperationException("No long vectors on this CPU.");
+    }
+
+    @Override
+    public String getName() {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public long longestStage(long[] overnights) {
+        // stage i is the difference of the overnights i and i - 1, so both are loaded shifted by one
+        LongVector longest = LongVector.zero(SPECIES);
+        int i = 1;
+        int bound = 1 + SPECIES.loopBound(overnights.length - 1);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector end = LongVector.fromArray(SPECIES, overnights, i);
+            LongVector begin = LongVector.fromArray(SPECIES, overnights, i - 1);
+            longest = longest.max(end.sub(begin));
+        }
+        long result = longest.reduceLanes(VectorOperators.MAX);
+        for (; i < overnights.length; i++) {
+            result = Math.max(result, overnights[i] - overnights[i - 1]);
+        }
+        return result;
+    }
+
+    @Override
+    public void distances(long[] overnights, int[] stations, long[] distances) {
+        // gathers the overnights of the stations
+        int i = 1;
+        int bound = 1 + SPECIES.loopBound(stations.length - 1);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector end = LongVector.fromArray(SPECIES, overnights, 0, stations, i);
+            LongVector begin = LongVector.fromArray(SPECIES, overnights, 0, stations, i - 1);
+            end.sub(begin).intoArray(distances, i);
+        }
+        for (; i < stations.length; i++) {
+            distances[i] = overnights[stations[i]] - overnights[stations[i - 1]];
+        }
+    }
+}
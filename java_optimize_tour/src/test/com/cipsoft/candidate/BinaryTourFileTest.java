@@ -0,0 +1,186 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writing and loading binary tour files in every layout, and the checks of damaged files
+ */
+class BinaryTourFileTest {
+
+    // size of the write buffer of BinaryTourFile.write()
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    @TempDir
+    Path tempDir;
+
+    private String roundTrip(int[] distances, int days, boolean varint, boolean withPrefixSums) throws IOException {
+        String file = tempDir.resolve("tour" + BinaryTourFile.EXTENSION).toString();
+        BinaryTourFile.write(file, distances, days, varint, withPrefixSums);
+        BinaryTourFile tourFile = new BinaryTourFile(file);
+        String layout = String.format("%d stages, varint %b, prefix sums %b", distances.length, varint, withPrefixSums);
+        assertNull(tourFile.errorMessage, layout);
+        assertEquals(distances.length, tourFile.stages, layout);
+        assertEquals(days, tourFile.days, layout);
+        assertArrayEquals(distances, tourFile.getDistances(), layout);
+        BinaryTourFile verified = new BinaryTourFile(file, true);
+        assertNull(verified.errorMessage, layout);
+        assertEquals(distances.length, verified.stages, layout);
+
+        PrefixSums expected = new ArrayPrefixSums(distances);
+        for (boolean offHeap : new boolean[] {false, true}) {
+            PrefixSums overnights = tourFile.getPrefixSums(offHeap);
+            assertEquals(expected.size(), overnights.size(), layout);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), overnights.get(i), layout);
+            }
+        }
+        return file;
+    }
+
+    private void roundTripAllLayouts(int[] distances, int days) throws IOException {
+        for (boolean varint : new boolean[] {false, true}) {
+            for (boolean withPrefixSums : new boolean[] {false, true}) {
+                roundTrip(distances, days, varint, withPrefixSums);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsSmallTours() throws IOException {
+        roundTripAllLayouts(new int[] {11, 16, 5, 5, 12, 10}, 3);
+        roundTripAllLayouts(new int[] {1}, 1);
+        // varints of 1 to 5 bytes
+        roundTripAllLayouts(new int[] {1, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456}, 4);
+    }
+
+    @Test
+    void roundTripsToursEndingAtTheBufferBoundary() throws IOException {
+        // 65507 one byte varints and a 4 byte varint fill the buffer up to 1 byte after the header;
+        // the padding of the prefix sums begins there
+        int[] distances = new int[65507 + 1 + 65531 + 1];
+        Arrays.fill(distances, 1);
+        distances[65507] = 2097152;
+        distances[distances.length - 1] = 16384;
+        roundTripAllLayouts(distances, 10);
+
+        // every number of bytes left in the buffer after the last distance
+        for (int stages = BUFFER_SIZE - 40; stages <= BUFFER_SIZE - 16; stages++) {
+            int[] ones = new int[stages];
+            Arrays.fill(ones, 1);
+            for (int longer = 0; longer < 4; longer++) {
+                // 3 byte varints shift the end of the distance block by 2 bytes each
+                if (longer > 0)
+                    ones[stages - longer] = 16384;
+                roundTripAllLayouts(ones, 7);
+            }
+        }
+    }
+
+    @Test
+    void roundTripsRandomTours() throws IOException {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 50; tour++) {
+            int[] distances = new int[1 + random.nextInt(100000)];
+            for (int i = 0; i < distances.length; i++) {
+                distances[i] = 1 + random.nextInt(1 << random.nextInt(15));
+            }
+            roundTripAllLayouts(distances, 1 + random.nextInt(distances.length));
+        }
+    }
+
+    @Test
+    void rejectsToursTooLongForIntPrefixSums() {
+        String file = tempDir.resolve("long" + BinaryTourFile.EXTENSION).toString();
+        int[] distances = {Integer.MAX_VALUE, 1};
+        IOException e = assertThrows(IOException.class,
+                () -> BinaryTourFile.write(file, distances, 1, true, true));
+        assertTrue(e.getMessage().contains("too long"));
+    }
+
+    // writes a tour and changes the bytes at the given position
+    private String damaged(int[] distances, boolean varint, boolean withPrefixSums, int position, byte... bytes)
+            throws IOException {
+        Path file = Files.createTempFile(tempDir, "damaged", BinaryTourFile.EXTENSION);
+        BinaryTourFile.write(file.toString(), distances, 2, varint, withPrefixSums);
+        byte[] content = Files.readAllBytes(file);
+        System.arraycopy(bytes, 0, content, position, bytes.length);
+        Files.write(file, content);
+        return file.toString();
+    }
+
+    private static byte[] littleEndian(int value) {
+        return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+    }
+
+    @Test
+    void reportsDamagedHeaders() throws IOException {
+        int[] distances = {11, 16, 5, 5, 12, 10};
+        String[][] cases = {
+                {damaged(distances, false, false, 0, (byte) 'X'), "is no tour file"},
+                {damaged(distances, false, false, 4, (byte) 9), "unknown version"},
+                {damaged(distances, false, false, 8, littleEndian(0)), "Number of stages"},
+                {damaged(distances, false, false, 12, littleEndian(-1)), "Number of days"},
+                {damaged(distances, false, false, 8, littleEndian(7)), "truncated or damaged"},
+                {damaged(distances, false, true, 8, littleEndian(1000)), "truncated or damaged"},
+        };
+        for (String[] damage : cases) {
+            BinaryTourFile tourFile = new BinaryTourFile(damage[0]);
+            assertEquals(0, tourFile.stages);
+            assertTrue(tourFile.errorMessage.startsWith("[BinaryTourFile]: "), tourFile.errorMessage);
+            assertTrue(tourFile.errorMessage.contains(damage[1]), damage[1] + ": " + tourFile.errorMessage);
+        }
+        BinaryTourFile missing = new BinaryTourFile(tempDir.resolve("missing.tour").toString());
+        assertEquals(0, missing.stages);
+        assertTrue(missing.errorMessage.contains("not found"));
+    }
+
+    @Test
+    void verifiesDistancesAndPrefixSumsOnRequest() throws IOException {
+        int[] distances = {11, 16, 5, 5, 12, 10};
+        // the int distances begin at byte 24, the prefix sums at byte 48
+        String[][] cases = {
+                {damaged(distances, false, false, 28, littleEndian(0)), "(stage 2): Distance has to be >= 1"},
+                {damaged(distances, false, true, 48, littleEndian(5)), "Prefix sum of the tour start"},
+                {damaged(distances, false, true, 60, littleEndian(999)), "(stage 3): Prefix sum does not match"},
+        };
+        for (String[] damage : cases) {
+            // loading trusts the blocks
+            BinaryTourFile tourFile = new BinaryTourFile(damage[0]);
+            assertNull(tourFile.errorMessage);
+            assertEquals(distances.length, tourFile.stages);
+
+            BinaryTourFile verified = new BinaryTourFile(damage[0], true);
+            assertEquals(0, verified.stages);
+            assertTrue(verified.errorMessage.contains(damage[1]), damage[1] + ": " + verified.errorMessage);
+        }
+    }
+
+    @Test
+    void reportsDamagedVarintsWhileDecoding() throws IOException {
+        // the last of the one byte varints continues beyond the block
+        String file = damaged(new int[] {11, 16, 5, 5, 12, 10}, true, false, 29, (byte) 0x80);
+        BinaryTourFile tourFile = new BinaryTourFile(file);
+        assertEquals(6, tourFile.stages);
+        assertThrows(IOException.class, tourFile::getDistances);
+        assertThrows(IOException.class, () -> tourFile.getPrefixSums(false));
+        assertThrows(IOException.class, () -> tourFile.getPrefixSums(true));
+
+        BinaryTourFile verified = new BinaryTourFile(file, true);
+        assertEquals(0, verified.stages);
+        assertTrue(verified.errorMessage.contains("truncated or damaged"), verified.errorMessage);
+    }
+}
@@ -0,0 +1,84 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The jump pointers of DayCountIndex have to give the days of a greedy walk, for the whole tour and for parts of it
+ */
+class DayCountIndexTest {
+
+    // days of the greedy walk from one overnight to another; -1 if a stage is too long
+    private static int walk(PrefixSums overnights, long maxDistance, int fromStation, int toStation) {
+        int days = 0;
+        int tripBegin = fromStation;
+        while (tripBegin < toStation) {
+            int tripEnd = tripBegin;
+            while ((tripEnd < toStation) && (overnights.get(tripEnd + 1) - overnights.get(tripBegin) <= maxDistance))
+                tripEnd++;
+            if (tripEnd == tripBegin)
+                return -1;
+            tripBegin = tripEnd;
+            days++;
+        }
+        return days;
+    }
+
+    @Test
+    void countsTheDaysOfTheWholeTour() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 200; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long longestStage = overnights.getLongestStage();
+            for (long maxDistance = longestStage; maxDistance <= overnights.get(distances.length);
+                 maxDistance += 1 + random.nextInt(20)) {
+                DayCountIndex index = new DayCountIndex(overnights, maxDistance);
+                assertEquals(maxDistance, index.getMaxDistance());
+                assertEquals(ExactSolver.countDays(overnights, maxDistance, distances.length), index.countDays());
+            }
+            assertEquals(-1, new DayCountIndex(overnights, longestStage - 1).countDays());
+        }
+    }
+
+    @Test
+    void countsTheDaysOfSubTours() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(200));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            // also below the longest stage, so some parts get stuck
+            long maxDistance = 1 + random.nextInt((int) overnights.getLongestStage() + 40);
+            DayCountIndex index = new DayCountIndex(overnights, maxDistance);
+            for (int query = 0; query < 200; query++) {
+                int fromStation = random.nextInt(distances.length + 1);
+                int toStation = fromStation + random.nextInt(distances.length + 1 - fromStation);
+                assertEquals(walk(overnights, maxDistance, fromStation, toStation),
+                        index.countDays(fromStation, toStation),
+                        String.format("%d km from %d to %d", maxDistance, fromStation, toStation));
+            }
+        }
+    }
+
+    @Test
+    void reachesTheOvernightOfTheGreedyWalk() {
+        Random random = new Random(17);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(200));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long maxDistance = overnights.getLongestStage() + random.nextInt(60);
+            DayCountIndex index = new DayCountIndex(overnights, maxDistance);
+            for (int query = 0; query < 100; query++) {
+                int fromStation = random.nextInt(distances.length + 1);
+                int days = random.nextInt(distances.length + 2);
+                int overnight = fromStation;
+                for (int day = 0; day < days; day++) {
+                    overnight = ExactSolver.farthestOvernight(overnights, overnight, overnights.get(overnight) + maxDistance);
+                }
+                assertEquals(overnight, index.reach(fromStation, days));
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The sweep skips day counts sharing an optimum, so every day count is compared with its own bisection
+ */
+class DayCountSweepTest {
+
+    @Test
+    void sweepEqualsTheOptimumOfEveryDayCount() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 300; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long[] longestDailyTrack = DayCountSweep.sweep(overnights);
+            assertEquals(distances.length + 1, longestDailyTrack.length);
+            for (int days = 1; days <= distances.length; days++) {
+                assertEquals(ExactSolver.findLongestDailyTrack(overnights, days), longestDailyTrack[days],
+                        String.format("%d stages in %d days", distances.length, days));
+            }
+        }
+    }
+
+    @Test
+    void sweepsEqualStages() {
+        int[] distances = new int[12];
+        Arrays.fill(distances, 5);
+        long[] longestDailyTrack = DayCountSweep.sweep(new ArrayPrefixSums(distances));
+        // 12 stages in d days: the longest day walks ceil(12 / d) stages
+        for (int days = 1; days <= 12; days++) {
+            assertEquals(5L * ((12 + days - 1) / days), longestDailyTrack[days], days + " days");
+        }
+    }
+}
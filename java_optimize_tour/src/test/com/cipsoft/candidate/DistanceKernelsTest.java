@@ -0,0 +1,97 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * VectorDistanceKernels has to calculate exactly what ScalarDistanceKernels does,
+ * including the entries left over after the last whole vector
+ */
+class DistanceKernelsTest {
+
+    private static DistanceKernels vectorKernels() {
+        try {
+            return new VectorDistanceKernels();
+        } catch (UnsupportedOperationException e) {
+            assumeTrue(false, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long[] randomOvernights(Random random, int length) {
+        long[] overnights = new long[length];
+        for (int i = 1; i < length; i++) {
+            overnights[i] = overnights[i - 1] + 1 + random.nextInt(random.nextInt(8) == 0 ? 1_000_000 : 100);
+        }
+        return overnights;
+    }
+
+    @Test
+    void vectorLongestStageEqualsScalar() {
+        DistanceKernels vector = vectorKernels();
+        DistanceKernels scalar = new ScalarDistanceKernels();
+        Random random = new Random(4711);
+        for (int length = 1; length <= 300; length++) {
+            for (int tour = 0; tour < 20; tour++) {
+                long[] overnights = randomOvernights(random, length);
+                assertEquals(scalar.longestStage(overnights), vector.longestStage(overnights), "length " + length);
+            }
+        }
+    }
+
+    @Test
+    void longestStageMayBeTheLastOne() {
+        DistanceKernels vector = vectorKernels();
+        for (int length = 2; length <= 70; length++) {
+            long[] overnights = new long[length];
+            for (int i = 1; i < length; i++) {
+                overnights[i] = i;
+            }
+            overnights[length - 1] += 1000;
+            assertEquals(1001, new ScalarDistanceKernels().longestStage(overnights));
+            assertEquals(1001, vector.longestStage(overnights), "length " + length);
+        }
+    }
+
+    @Test
+    void vectorDistancesEqualScalar() {
+        DistanceKernels vector = vectorKernels();
+        DistanceKernels scalar = new ScalarDistanceKernels();
+        Random random = new Random(42);
+        for (int days = 1; days <= 200; days++) {
+            long[] overnights = randomOvernights(random, days + 1 + random.nextInt(1000));
+            for (int tour = 0; tour < 10; tour++) {
+                // ascending stations from the tour start to the tour end; days may be empty
+                int[] stations = new int[days + 1];
+                for (int day = 1; day < days; day++) {
+                    int remaining = overnights.length - 1 - stations[day - 1];
+                    stations[day] = stations[day - 1] + random.nextInt(remaining / (days - day) + 1);
+                }
+                stations[days] = overnights.length - 1;
+
+                long[] expected = new long[days + 1];
+                long[] distances = new long[days + 1];
+                scalar.distances(overnights, stations, expected);
+                vector.distances(overnights, stations, distances);
+                assertArrayEquals(expected, distances, "days " + days);
+            }
+        }
+    }
+
+    @Test
+    void prefixSumsUseTheSelectedKernels() {
+        Random random = new Random(17);
+        int[] distances = ExactSolverTest.randomDistances(random, 1000);
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        long longest = 0;
+        for (int distance : distances) {
+            longest = Math.max(longest, distance);
+        }
+        assertEquals(longest, overnights.getLongestStage());
+        assertEquals(longest, new FenwickPrefixSums(distances).getLongestStage());
+    }
+}
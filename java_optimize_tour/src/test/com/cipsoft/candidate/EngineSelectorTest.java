@@ -0,0 +1,70 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The choices of the cost model and the plans of the chosen engines
+ */
+class EngineSelectorTest {
+
+    private static EngineSelector selector(int cores) {
+        return new EngineSelector(EngineSelector.HEURISTIC_NANOS, EngineSelector.EXACT_NANOS,
+                EngineSelector.PARALLEL_NANOS, cores, null);
+    }
+
+    @Test
+    void neverChoosesTheHeuristicForADominatingStage() {
+        int[] distances = new int[1000];
+        Arrays.fill(distances, 1);
+        distances[500] = 10000;
+        // 3 days would be cheap for the heuristic, but the long stage is its own day anyway
+        assertNotEquals(EngineSelector.Engine.HEURISTIC, selector(1).select(new ArrayPrefixSums(distances), 3));
+    }
+
+    @Test
+    void choosesTheCheapestEstimate() {
+        int[] distances = new int[1 << 20];
+        Arrays.fill(distances, 10);
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        // days^3 grows faster than the stages
+        assertEquals(EngineSelector.Engine.HEURISTIC, selector(1).select(overnights, 10));
+        assertEquals(EngineSelector.Engine.EXACT, selector(1).select(overnights, 10000));
+        assertEquals(EngineSelector.Engine.PARALLEL, selector(8).select(overnights, 10000));
+    }
+
+    @Test
+    void everyEngineFindsAValidPlan() {
+        Random random = new Random(4711);
+        EngineSelector[] selectors = {selector(1), selector(4),
+                // with parallel costs of zero the parallel engine is chosen for any tour without a dominating stage
+                new EngineSelector(EngineSelector.HEURISTIC_NANOS, EngineSelector.EXACT_NANOS, 0.0, 4, null)};
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(3000));
+            int days = 1 + random.nextInt(distances.length / 2);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long optimum = ExactSolver.findLongestDailyTrack(overnights, days);
+            for (EngineSelector selector : selectors) {
+                EngineSelector.Engine engine = selector.select(overnights, days);
+                TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+                selector.solve(trackPlan);
+                // the heuristic is nearly optimal only
+                if (engine == EngineSelector.Engine.HEURISTIC)
+                    assertTrue(trackPlan.getLongestDailyTrack() >= optimum);
+                else
+                    assertEquals(optimum, trackPlan.getLongestDailyTrack(), engine.getName());
+            }
+        }
+    }
+
+    @Test
+    void rejectsLessThanOneCore() {
+        assertThrows(IllegalArgumentException.class, () -> selector(0));
+    }
+}
@@ -0,0 +1,115 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ExactSolver is the oracle of the other solvers, so it is checked against a brute force search
+ */
+class ExactSolverTest {
+
+    /**
+     * Random stage distances; every fourth tour has one dominating stage
+     * @param random Source of the distances
+     * @param stages Number of stages
+     * @return Distances between every stage
+     */
+    static int[] randomDistances(Random random, int stages) {
+        int[] distances = new int[stages];
+        for (int i = 0; i < stages; i++) {
+            distances[i] = 1 + random.nextInt(20);
+        }
+        if (random.nextInt(4) == 0)
+            distances[random.nextInt(stages)] = 100 + random.nextInt(100);
+        return distances;
+    }
+
+    // smallest maximum day trip of all partitions into days of at least one stage each
+    static long bruteForce(int[] distances, int days) {
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        int stages = distances.length;
+        // longest[d][i]: smallest maximum of the first i stages walked in d days
+        long[][] longest = new long[days + 1][stages + 1];
+        for (long[] row : longest) {
+            Arrays.fill(row, Long.MAX_VALUE);
+        }
+        longest[0][0] = 0;
+        for (int day = 1; day <= days; day++) {
+            for (int end = day; end <= stages; end++) {
+                for (int begin = day - 1; begin < end; begin++) {
+                    if (longest[day - 1][begin] == Long.MAX_VALUE)
+                        continue;
+                    long trip = overnights.get(end) - overnights.get(begin);
+                    longest[day][end] = Math.min(longest[day][end], Math.max(longest[day - 1][begin], trip));
+                }
+            }
+        }
+        return longest[days][stages];
+    }
+
+    // the overnights ascend from the tour start to the tour end and the days match the prefix sums
+    static void assertValidPlan(TrackPlan trackPlan, PrefixSums overnights) {
+        int stages = overnights.size() - 1;
+        assertEquals(0, trackPlan.getOvernight(0));
+        assertEquals(stages, trackPlan.getOvernight(trackPlan.days));
+        long longest = 0;
+        for (int day = 1; day <= trackPlan.days; day++) {
+            int begin = trackPlan.getOvernight(day - 1);
+            int end = trackPlan.getOvernight(day);
+            if (end <= begin)
+                throw new AssertionError(String.format("Day %d ends at %d, but begins at %d.", day, end, begin));
+            assertEquals(overnights.get(end) - overnights.get(begin), trackPlan.getDistance(day), "day " + day);
+            longest = Math.max(longest, trackPlan.getDistance(day));
+        }
+        assertEquals(longest, trackPlan.getLongestDailyTrack());
+    }
+
+    @Test
+    void findsTheOptimumOfSmallTours() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 2000; tour++) {
+            int[] distances = randomDistances(random, 1 + random.nextInt(12));
+            int days = 1 + random.nextInt(distances.length);
+            long optimum = bruteForce(distances, days);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+
+            assertEquals(optimum, ExactSolver.findLongestDailyTrack(overnights, days));
+            for (TrackPlan trackPlan : new TrackPlan[] {
+                    new ArrayTrackPlan(overnights, days), new LinkedTrackPlan(overnights, days)}) {
+                new ExactSolver().solve(trackPlan);
+                assertValidPlan(trackPlan, overnights);
+                assertEquals(optimum, trackPlan.getLongestDailyTrack());
+            }
+        }
+    }
+
+    @Test
+    void solvesTheSampleTour() {
+        // Test1.txt: 6 stages in 3 days; 11 | 16 5 5 | 12 10
+        TrackPlan trackPlan = new ArrayTrackPlan(new int[] {11, 16, 5, 5, 12, 10}, 3);
+        new ExactSolver().solve(trackPlan);
+        assertEquals(26, trackPlan.getLongestDailyTrack());
+        assertEquals(1, trackPlan.getOvernight(1));
+        assertEquals(4, trackPlan.getOvernight(2));
+    }
+
+    @Test
+    void countDaysAgreesWithIsFeasible() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 200; tour++) {
+            int[] distances = randomDistances(random, 1 + random.nextInt(50));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long tourLength = overnights.get(distances.length);
+            for (long maxDistance = overnights.getLongestStage(); maxDistance <= tourLength; maxDistance++) {
+                int neededDays = ExactSolver.countDays(overnights, maxDistance, distances.length);
+                for (int days = 1; days <= distances.length; days++) {
+                    assertEquals(neededDays <= days, ExactSolver.isFeasible(overnights, days, maxDistance));
+                    assertEquals(Math.min(neededDays, days + 1), ExactSolver.countDays(overnights, maxDistance, days));
+                }
+            }
+        }
+    }
+}
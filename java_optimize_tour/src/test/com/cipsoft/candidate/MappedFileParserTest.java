@@ -0,0 +1,119 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MappedFileParser has to read every file like FileParser does, including the messages of invalid files
+ */
+class MappedFileParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String write(String content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "tour", ".txt");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file.toString();
+    }
+
+    private static void assertSameResult(FileParser expected, FileParser actual, String content) {
+        assertEquals(expected.errorMessage, actual.errorMessage, content);
+        assertEquals(expected.days, actual.days, content);
+        assertArrayEquals(expected.availableOvernightDistances, actual.availableOvernightDistances, content);
+    }
+
+    // parses the content from a file and from memory and compares both with FileParser
+    private void assertParsedLikeScanner(String content) throws IOException {
+        String file = write(content);
+        FileParser expected = new FileParser(file);
+        assertSameResult(expected, new MappedFileParser(file), content);
+
+        // the name of the data replaces the file name in the messages
+        FileParser fromMemory = new MappedFileParser(ByteBuffer.wrap(content.getBytes(StandardCharsets.US_ASCII)), file);
+        assertSameResult(expected, fromMemory, content);
+    }
+
+    @Test
+    void readsTheSampleTour() throws IOException {
+        FileParser parser = new MappedFileParser(write("6   \n3  \n11\n16\n5\n5\n12\n10"));
+        assertNull(parser.errorMessage);
+        assertEquals(3, parser.days);
+        assertArrayEquals(new int[] {11, 16, 5, 5, 12, 10}, parser.availableOvernightDistances);
+    }
+
+    @Test
+    void readsValidToursLikeTheScanner() throws IOException {
+        String[] separators = {"\n", "\r\n", " ", "\t", "  \n\n", "\f", "\u000B"};
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 200; tour++) {
+            int stages = 1 + random.nextInt(100);
+            StringBuilder content = new StringBuilder();
+            if (random.nextBoolean())
+                content.append(separators[random.nextInt(separators.length)]);
+            content.append(stages).append('\n').append(1 + random.nextInt(stages));
+            for (int i = 0; i < stages; i++) {
+                content.append(separators[random.nextInt(separators.length)]);
+                content.append(random.nextBoolean() ? 1 + random.nextInt(100) : 1 + random.nextInt(Integer.MAX_VALUE));
+            }
+            if (random.nextBoolean())
+                content.append('\n');
+            assertParsedLikeScanner(content.toString());
+        }
+    }
+
+    @Test
+    void reportsInvalidToursLikeTheScanner() throws IOException {
+        String[] contents = {
+                "",
+                "\n\n",
+                "x\n3\n1\n2\n3",
+                "3\n",
+                "3\nx\n1\n2\n3",
+                "0\n3\n",
+                "3\n0\n1\n2\n3",
+                "-3\n2\n1\n2\n3",
+                "3\n2\n1\n2",
+                "3\n2\n1\nx\n3",
+                "3\n2\n1\n0\n3",
+                "3\n2\n1\n-7\n3",
+                "3\n2\n1\n2147483648\n3",
+                "3\n2\n1\n99999999999999999999\n3",
+                "3\n2\n1\n2x\n3",
+                "3\n2\n1\n--2\n3",
+                "3\n2\n1 2 3 4 5",
+                // more stages than the file can hold are rejected before the array is allocated
+                "2147483647\n1\n1",
+                "4\n2\n1\n2\n3",
+        };
+        for (String content : contents) {
+            assertParsedLikeScanner(content);
+        }
+    }
+
+    @Test
+    void rejectsHeadersLargerThanTheData() {
+        // 12 bytes of a request must not allocate 8 GB
+        FileParser parser = new MappedFileParser(ByteBuffer.wrap("2000000000 1".getBytes(StandardCharsets.US_ASCII)), "request");
+        assertEquals("[FileParser]: 'request' is too short for the 2000000000 stages of its header.", parser.errorMessage);
+        assertEquals(0, parser.availableOvernightDistances.length);
+    }
+
+    @Test
+    void reportsMissingFiles() {
+        String file = tempDir.resolve("missing.txt").toString();
+        FileParser parser = new MappedFileParser(file);
+        assertEquals(new FileParser(file).errorMessage, parser.errorMessage);
+        assertEquals(0, parser.availableOvernightDistances.length);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The perturbed starts and the best of them compared with a single start of the heuristic
+ */
+class MultiStartSolverTest {
+
+    private static int[] overnights(TrackPlan trackPlan) {
+        int[] overnights = new int[trackPlan.days + 1];
+        for (int day = 0; day <= trackPlan.days; day++) {
+            overnights[day] = trackPlan.getOvernight(day);
+        }
+        return overnights;
+    }
+
+    @Test
+    void perturbedStartsKeepEveryDay() {
+        Random random = new Random(4711);
+        MultiStartSolver solver = new MultiStartSolver(4, 4711);
+        for (int tour = 0; tour < 300; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(500));
+            int days = 1 + random.nextInt(distances.length);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+            solver.perturb(trackPlan, random);
+            ExactSolverTest.assertValidPlan(trackPlan, overnights);
+        }
+    }
+
+    @Test
+    void bestStartIsNotWorseThanTheFirstGuess() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(1000));
+            int days = 1 + random.nextInt(distances.length / 2);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+
+            TrackPlan single = new ArrayTrackPlan(overnights, days);
+            new HeuristicSolver().solve(single);
+            TrackPlan multi = new ArrayTrackPlan(overnights, days);
+            new MultiStartSolver(4, 4711).solve(multi);
+
+            // the first start is the unperturbed first guess
+            assertTrue(multi.getLongestDailyTrack() <= single.getLongestDailyTrack());
+            assertTrue(multi.getLongestDailyTrack() >= ExactSolver.findLongestDailyTrack(overnights, days));
+            assertEquals(0, multi.getOvernight(0));
+            assertEquals(distances.length, multi.getOvernight(days));
+        }
+    }
+
+    @Test
+    void singleStartEqualsTheHeuristic() {
+        Random random = new Random(17);
+        for (int tour = 0; tour < 50; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(500));
+            int days = 1 + random.nextInt(distances.length / 2);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+
+            TrackPlan single = new ArrayTrackPlan(overnights, days);
+            new HeuristicSolver().solve(single);
+            TrackPlan multi = new ArrayTrackPlan(overnights, days);
+            new MultiStartSolver(1, 4711).solve(multi);
+            assertEquals(single.getLongestDailyTrack(), multi.getLongestDailyTrack());
+        }
+    }
+
+    @Test
+    void sameSeedGivesTheSameStarts() {
+        int[] distances = ExactSolverTest.randomDistances(new Random(23), 2000);
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        MultiStartSolver solver = new MultiStartSolver(4, 99);
+        TrackPlan first = new ArrayTrackPlan(overnights, 100);
+        solver.perturb(first, new Random(99));
+        TrackPlan second = new ArrayTrackPlan(overnights, 100);
+        solver.perturb(second, new Random(99));
+        assertArrayEquals(overnights(first), overnights(second));
+
+        // the order the starts finish in may differ, but not the best maximum
+        first = new ArrayTrackPlan(overnights, 100);
+        solver.solve(first);
+        second = new ArrayTrackPlan(overnights, 100);
+        solver.solve(second);
+        assertEquals(first.getLongestDailyTrack(), second.getLongestDailyTrack());
+    }
+}
@@ -0,0 +1,104 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The anytime optimization: deadline, cancellation, the result and its gap to the lower bound
+ */
+class OptimizationBudgetTest {
+
+    // the farthest daily trip of the committed overnights; a stopped plan may still contain empty days
+    private static long longestDay(TrackPlan trackPlan) {
+        long longest = 0;
+        for (int day = 1; day <= trackPlan.days; day++) {
+            long distance = trackPlan.availableOvernights.get(trackPlan.getOvernight(day))
+                    - trackPlan.availableOvernights.get(trackPlan.getOvernight(day - 1));
+            assertEquals(distance, trackPlan.getDistance(day), "day " + day);
+            longest = Math.max(longest, distance);
+        }
+        return longest;
+    }
+
+    @Test
+    void budgetExpiresAtItsDeadline() throws InterruptedException {
+        assertFalse(new OptimizationBudget().isExhausted());
+        // the first check reads the clock
+        OptimizationBudget budget = new OptimizationBudget(1);
+        Thread.sleep(5);
+        assertTrue(budget.isExhausted());
+        assertTrue(budget.isExhausted());
+        assertFalse(budget.isCancelled());
+
+        OptimizationBudget cancelled = new OptimizationBudget(60_000);
+        assertFalse(cancelled.isExhausted());
+        cancelled.cancel();
+        assertTrue(cancelled.isCancelled());
+        assertTrue(cancelled.isExhausted());
+    }
+
+    @Test
+    void cancelledOptimizationKeepsTheFirstGuess() {
+        int[] distances = ExactSolverTest.randomDistances(new Random(4711), 1000);
+        TrackPlan trackPlan = new ArrayTrackPlan(distances, 50);
+        long firstGuess = trackPlan.getLongestDailyTrack();
+        OptimizationBudget budget = new OptimizationBudget();
+        budget.cancel();
+
+        OptimizationResult result = new HeuristicOptimizer(trackPlan).Optimize(budget);
+        assertFalse(result.finished);
+        assertEquals(firstGuess, result.longestDailyTrack);
+        assertEquals(longestDay(trackPlan), result.longestDailyTrack);
+        assertTrue(result.getGap() >= 0);
+    }
+
+    @Test
+    void stoppedOptimizationIsConsistent() {
+        // a deadline passed before the first check stops the optimization at its first shift
+        int[] distances = ExactSolverTest.randomDistances(new Random(42), 100000);
+        TrackPlan trackPlan = new LinkedTrackPlan(new ArrayPrefixSums(distances), 5000);
+        OptimizationResult result = new HeuristicOptimizer(trackPlan).Optimize(new OptimizationBudget(-1));
+        assertFalse(result.finished);
+        assertEquals(longestDay(trackPlan), result.longestDailyTrack);
+        assertTrue(result.longestDailyTrack >= ExactSolver.findLongestDailyTrack(trackPlan.availableOvernights, 5000));
+    }
+
+    @Test
+    void solverReportsTheLastResult() {
+        Random random = new Random(17);
+        HeuristicSolver solver = new HeuristicSolver(null, 60_000);
+        assertNull(solver.getLastResult());
+        for (int tour = 0; tour < 50; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(500));
+            int days = 1 + random.nextInt(distances.length / 2);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+            solver.solve(trackPlan);
+
+            OptimizationResult result = solver.getLastResult();
+            assertNotNull(result);
+            assertTrue(result.finished);
+            assertEquals(trackPlan.getLongestDailyTrack(), result.longestDailyTrack);
+            long tourLength = overnights.get(distances.length);
+            assertEquals(Math.max(Arrays.stream(distances).max().getAsInt(), (tourLength + days - 1) / days),
+                    result.lowerBound);
+            // the lower bound is never above the optimum
+            assertTrue(result.lowerBound <= ExactSolver.findLongestDailyTrack(overnights, days));
+            assertTrue(result.getGap() >= 0);
+        }
+    }
+
+    @Test
+    void solverWithoutTimeLimitHasNoResult() {
+        HeuristicSolver solver = new HeuristicSolver();
+        solver.solve(new ArrayTrackPlan(new int[] {11, 16, 5, 5, 12, 10}, 3));
+        assertNull(solver.getLastResult());
+    }
+}
@@ -0,0 +1,109 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The chunked check of ParallelExactSolver has to agree with the sequential walk of ExactSolver,
+ * which it uses itself for short tours
+ */
+class ParallelExactSolverTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void chunkedCheckEqualsTheSequentialWalk() {
+        ParallelExactSolver solver = new ParallelExactSolver(pool);
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 300; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(200));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long longestStage = overnights.getLongestStage();
+            assertEquals(longestStage, solver.longestStageChunked(overnights));
+            for (long maxDistance = longestStage; maxDistance <= overnights.get(distances.length);
+                 maxDistance += 1 + random.nextInt(5)) {
+                for (int days = 1; days <= distances.length; days += 1 + random.nextInt(3)) {
+                    assertEquals(ExactSolver.isFeasible(overnights, days, maxDistance),
+                            solver.isFeasibleChunked(overnights, days, maxDistance),
+                            String.format("%d km in %d days", maxDistance, days));
+                }
+            }
+        }
+    }
+
+    @Test
+    void checksShortToursAndSingleThreadsSequentially() {
+        int[] distances = new int[ParallelExactSolver.MIN_PARALLEL_STAGES];
+        Arrays.fill(distances, 10);
+        assertTrue(new ParallelExactSolver(pool).isParallel(new ArrayPrefixSums(distances)));
+        assertFalse(new ParallelExactSolver(pool).isParallel(new ArrayPrefixSums(Arrays.copyOf(distances, distances.length - 1))));
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        try {
+            assertFalse(new ParallelExactSolver(singleThread).isParallel(new ArrayPrefixSums(distances)));
+        } finally {
+            singleThread.shutdown();
+        }
+    }
+
+    @Test
+    void findsTheSameOptimumOfLongTours() {
+        Random random = new Random(23);
+        for (int tour = 0; tour < 5; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, ParallelExactSolver.MIN_PARALLEL_STAGES + random.nextInt(100000));
+            int days = 1 + random.nextInt(5000);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+
+            TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+            new ParallelExactSolver(pool).solve(trackPlan);
+            ExactSolverTest.assertValidPlan(trackPlan, overnights);
+            assertEquals(ExactSolver.findLongestDailyTrack(overnights, days), trackPlan.getLongestDailyTrack());
+        }
+    }
+
+    @Test
+    void findsTheSameOptimum() {
+        Random random = new Random(17);
+        for (int tour = 0; tour < 300; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(2000));
+            int days = 1 + random.nextInt(Math.min(distances.length, 200));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+
+            TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+            new ParallelExactSolver(pool).solve(trackPlan);
+            ExactSolverTest.assertValidPlan(trackPlan, overnights);
+            assertEquals(ExactSolver.findLongestDailyTrack(overnights, days), trackPlan.getLongestDailyTrack());
+        }
+    }
+
+    @Test
+    void parallelPrefixSumsEqualTheSequentialOnes() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 50; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(5000));
+            PrefixSums sequential = new ArrayPrefixSums(distances);
+            PrefixSums parallel = new ArrayPrefixSums(distances, pool);
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i), parallel.get(i));
+            }
+        }
+    }
+}
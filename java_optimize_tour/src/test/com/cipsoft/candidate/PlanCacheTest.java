@@ -0,0 +1,187 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * LRU eviction, the counters, saving and loading, and the check of cached plans against the tour
+ */
+class PlanCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static TrackPlan solve(PrefixSums overnights, int days) {
+        TrackPlan trackPlan = new ArrayTrackPlan(overnights, days);
+        new ExactSolver().solve(trackPlan);
+        return trackPlan;
+    }
+
+    private static PrefixSums randomTour(Random random, int stages) {
+        return new ArrayPrefixSums(ExactSolverTest.randomDistances(random, stages));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedPlan() {
+        Random random = new Random(4711);
+        PlanCache cache = new PlanCache(2);
+        PrefixSums[] tours = {randomTour(random, 50), randomTour(random, 50), randomTour(random, 50)};
+        PlanCache.Key[] keys = new PlanCache.Key[tours.length];
+        for (int tour = 0; tour < tours.length; tour++) {
+            keys[tour] = new PlanCache.Key(tours[tour], 5, "exact");
+        }
+
+        cache.put(keys[0], new PlanCache.Plan(solve(tours[0], 5)));
+        cache.put(keys[1], new PlanCache.Plan(solve(tours[1], 5)));
+        // tour 1 becomes the least recently used one
+        assertNotNull(cache.get(keys[0], tours[0]));
+        cache.put(keys[2], new PlanCache.Plan(solve(tours[2], 5)));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(keys[1], tours[1]));
+        assertNotNull(cache.get(keys[0], tours[0]));
+        assertNotNull(cache.get(keys[2], tours[2]));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals("2 plans, 3 hits, 1 misses, 1 evictions", cache.getSummary());
+    }
+
+    @Test
+    void keyDependsOnTheTourDaysAndSolver() {
+        int[] distances = {11, 16, 5, 5, 12, 10};
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        PlanCache.Key key = new PlanCache.Key(overnights, 3, "exact");
+        assertEquals(key, new PlanCache.Key(new ArrayPrefixSums(distances.clone()), 3, "exact"));
+        assertEquals(key.hashCode(), new PlanCache.Key(new FenwickPrefixSums(distances), 3, "exact").hashCode());
+        assertNotEquals(key, new PlanCache.Key(overnights, 2, "exact"));
+        assertNotEquals(key, new PlanCache.Key(overnights, 3, "heuristic"));
+        distances[2] = 6;
+        assertNotEquals(key, new PlanCache.Key(new ArrayPrefixSums(distances), 3, "exact"));
+    }
+
+    @Test
+    void savedPlansAreLoadedAgain() throws IOException {
+        Random random = new Random(42);
+        PlanCache cache = new PlanCache(100);
+        PrefixSums[] tours = new PrefixSums[20];
+        PlanCache.Key[] keys = new PlanCache.Key[tours.length];
+        for (int tour = 0; tour < tours.length; tour++) {
+            tours[tour] = randomTour(random, 1 + random.nextInt(300));
+            int days = 1 + random.nextInt(tours[tour].size() - 1);
+            keys[tour] = new PlanCache.Key(tours[tour], days, "exact");
+            cache.put(keys[tour], new PlanCache.Plan(solve(tours[tour], days)));
+        }
+        String file = tempDir.resolve("plans.cache").toString();
+        cache.save(file);
+
+        PlanCache loaded = new PlanCache(100);
+        loaded.load(file);
+        assertEquals(tours.length, loaded.size());
+        for (int tour = 0; tour < tours.length; tour++) {
+            PlanCache.Plan plan = cache.get(keys[tour], tours[tour]);
+            PlanCache.Plan loadedPlan = loaded.get(keys[tour], tours[tour]);
+            assertNotNull(loadedPlan);
+            assertEquals(plan.getDays(), loadedPlan.getDays());
+            assertEquals(plan.getLongestDailyTrack(), loadedPlan.getLongestDailyTrack());
+            for (int day = 0; day <= plan.getDays(); day++) {
+                assertEquals(plan.getOvernight(day), loadedPlan.getOvernight(day));
+            }
+
+            // applying the loaded plan gives the optimum
+            TrackPlan trackPlan = new LinkedTrackPlan(tours[tour], plan.getDays());
+            loadedPlan.applyTo(trackPlan);
+            ExactSolverTest.assertValidPlan(trackPlan, tours[tour]);
+            assertEquals(ExactSolver.findLongestDailyTrack(tours[tour], plan.getDays()),
+                    trackPlan.getLongestDailyTrack());
+        }
+        assertEquals(0, loaded.getMisses());
+        assertEquals(0, loaded.getEvictions());
+    }
+
+    @Test
+    void loadSkipsDamagedPlans() throws IOException {
+        PrefixSums overnights = new ArrayPrefixSums(new int[] {11, 16, 5, 5, 12, 10});
+        long hash = PlanCache.hash(overnights);
+        Path file = tempDir.resolve("damaged.cache");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(PlanCache.MAGIC);
+            out.writeByte(PlanCache.VERSION);
+            out.writeInt(3);
+            writeEntry(out, hash, 6, 3, "exact", 26, 0, 1, 4, 6);
+            // the overnights do not ascend
+            writeEntry(out, hash, 6, 3, "heuristic", 26, 0, 4, 1, 6);
+            // the tour does not end at the last stage
+            writeEntry(out, hash, 6, 3, "parallel", 26, 0, 1, 4, 5);
+        }
+
+        PlanCache cache = new PlanCache(10);
+        cache.load(file.toString());
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get(new PlanCache.Key(overnights, 3, "exact"), overnights));
+        assertNull(cache.get(new PlanCache.Key(overnights, 3, "heuristic"), overnights));
+    }
+
+    @Test
+    void planNotFittingTheTourIsAMiss() throws IOException {
+        PrefixSums overnights = new ArrayPrefixSums(new int[] {11, 16, 5, 5, 12, 10});
+        Path file = tempDir.resolve("wrong.cache");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(PlanCache.MAGIC);
+            out.writeByte(PlanCache.VERSION);
+            out.writeInt(1);
+            // ascends, but the farthest day of these overnights is 27 km, not 26 km
+            writeEntry(out, PlanCache.hash(overnights), 6, 3, "exact", 26, 0, 2, 4, 6);
+        }
+
+        PlanCache cache = new PlanCache(10);
+        cache.load(file.toString());
+        assertNull(cache.get(new PlanCache.Key(overnights, 3, "exact"), overnights));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void hashCollisionIsAMiss() {
+        PrefixSums cached = new ArrayPrefixSums(new int[] {11, 16, 5, 5, 12, 10});
+        PrefixSums other = new ArrayPrefixSums(new int[] {30, 1, 1, 1, 1, 30});
+        PlanCache cache = new PlanCache(10);
+        cache.put(new PlanCache.Key(cached, 3, "exact"), new PlanCache.Plan(solve(cached, 3)));
+
+        // the other tour with the hash of the cached one
+        PlanCache.Key collision = new PlanCache.Key(PlanCache.hash(cached), 6, 3, "exact");
+        assertNull(cache.get(collision, other));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = tempDir.resolve("other.cache");
+        Files.write(file, new byte[] {'P', 'K', 3, 4, 1, 0, 0, 0, 0});
+        assertThrows(IOException.class, () -> new PlanCache(10).load(file.toString()));
+    }
+
+    private static void writeEntry(DataOutputStream out, long hash, int stages, int days, String solver,
+                                   long longestDailyTrack, int... overnights) throws IOException {
+        out.writeLong(hash);
+        out.writeInt(stages);
+        out.writeInt(days);
+        out.writeUTF(solver);
+        out.writeLong(longestDailyTrack);
+        out.writeInt(overnights.length);
+        for (int overnight : overnights) {
+            out.writeInt(overnight);
+        }
+    }
+}
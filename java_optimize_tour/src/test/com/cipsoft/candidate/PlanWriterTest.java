@@ -0,0 +1,113 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The three layouts of PlanWriter, also for plans larger than its buffer, and the plans written by Main.planTour()
+ */
+class PlanWriterTest {
+
+    private static byte[] write(TrackPlan trackPlan, PlanWriter.Format format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PlanWriter.write(trackPlan, format, Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static TrackPlan solve(int[] distances, int days) {
+        TrackPlan trackPlan = new ArrayTrackPlan(distances, days);
+        new ExactSolver().solve(trackPlan);
+        return trackPlan;
+    }
+
+    // the binary layout read back: magic, version, days, maximum and the overnights with their distances
+    private static void assertBinaryPlan(TrackPlan trackPlan, byte[] plan) {
+        ByteBuffer buffer = ByteBuffer.wrap(plan).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(PlanWriter.MAGIC, buffer.getInt());
+        assertEquals(PlanWriter.VERSION, buffer.get());
+        buffer.position(buffer.position() + 3);
+        assertEquals(trackPlan.days, buffer.getInt());
+        assertEquals(trackPlan.getLongestDailyTrack(), buffer.getLong());
+        for (int day = 1; day <= trackPlan.days; day++) {
+            assertEquals(trackPlan.getOvernight(day), buffer.getInt(), "day " + day);
+            assertEquals(trackPlan.getDistance(day), buffer.getLong(), "day " + day);
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void writesAllFormats() throws IOException {
+        Random random = new Random(4711);
+        // up to 20000 days, so the 64 KB buffer is flushed several times in every format
+        for (int tour = 0; tour < 30; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(40000));
+            TrackPlan trackPlan = solve(distances, 1 + random.nextInt(Math.min(distances.length, 20000)));
+
+            assertEquals(trackPlan.toString(), new String(write(trackPlan, PlanWriter.Format.TEXT), StandardCharsets.US_ASCII));
+
+            String[] lines = new String(write(trackPlan, PlanWriter.Format.CSV), StandardCharsets.US_ASCII).split("\n");
+            assertEquals("day,fromStation,toStation,distance", lines[0]);
+            assertEquals(trackPlan.days + 1, lines.length);
+            for (int day = 1; day <= trackPlan.days; day++) {
+                assertEquals(day + "," + trackPlan.getOvernight(day - 1) + "," + trackPlan.getOvernight(day) + ","
+                        + trackPlan.getDistance(day), lines[day]);
+            }
+
+            assertBinaryPlan(trackPlan, write(trackPlan, PlanWriter.Format.BINARY));
+        }
+    }
+
+    @Test
+    void writesLongDistances() throws IOException {
+        // 4 * (2^31 - 1) km in one day
+        int[] distances = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        TrackPlan trackPlan = new ArrayTrackPlan(new ArrayPrefixSums(distances), 1);
+        assertEquals("1. Tag: 8589934588 km\n\nMaximum: 8589934588 km\n",
+                new String(write(trackPlan, PlanWriter.Format.TEXT), StandardCharsets.US_ASCII));
+        assertEquals("day,fromStation,toStation,distance\n1,0,4,8589934588\n",
+                new String(write(trackPlan, PlanWriter.Format.CSV), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void keepsMessagesOutOfBinaryPlans() {
+        // more days than stages, so planTour() explains that it plans fewer days
+        int[] distances = {11, 16, 5, 5, 12, 10};
+        ByteArrayOutputStream plan = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(plan, true, StandardCharsets.UTF_8);
+        assertTrue(Main.planTour(new ArrayPrefixSums(distances), 8, new ExactSolver(), "array",
+                PlanWriter.Format.BINARY, out));
+        assertBinaryPlan(solve(distances, 6), plan.toByteArray());
+    }
+
+    @Test
+    void writesTheFirstGuessIfOptimizingFails() {
+        int[] distances = {11, 16, 5, 5, 12, 10};
+        // moves some overnights before failing
+        TourSolver failing = trackPlan -> {
+            trackPlan.trackEndEarlier(2);
+            throw new IllegalStateException("failed");
+        };
+        ByteArrayOutputStream plan = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(plan, true, StandardCharsets.UTF_8);
+        assertFalse(Main.planTour(new ArrayPrefixSums(distances), 3, failing, "array", PlanWriter.Format.CSV, out));
+
+        TrackPlan firstGuess = new ArrayTrackPlan(distances, 3);
+        StringBuilder expected = new StringBuilder("day,fromStation,toStation,distance\n");
+        for (int day = 1; day <= 3; day++) {
+            expected.append(day).append(',').append(firstGuess.getOvernight(day - 1)).append(',')
+                    .append(firstGuess.getOvernight(day)).append(',').append(firstGuess.getDistance(day)).append('\n');
+        }
+        assertEquals(expected.toString(), plan.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,72 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Answers of the planning server to valid, malformed and oversized tour data
+ */
+class PlanningServerTest {
+
+    private PlanningServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new PlanningServer(0);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop();
+    }
+
+    // status code and body of a POST to /plan
+    private String post(String query, byte[] body, int expectedStatus) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + "/plan" + query);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            } catch (IOException e) {
+                // the server may answer before it read the whole body
+            }
+            assertEquals(expectedStatus, connection.getResponseCode());
+            InputStream in = (expectedStatus == 200) ? connection.getInputStream() : connection.getErrorStream();
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    void plansTheSampleTour() throws IOException {
+        String plan = post("?solver=exact", "6\n3\n11\n16\n5\n5\n12\n10".getBytes(StandardCharsets.US_ASCII), 200);
+        assertTrue(plan.contains("26"), plan);
+    }
+
+    @Test
+    void rejectsHeadersLargerThanTheBody() throws IOException {
+        String message = post("", "2000000000 1".getBytes(StandardCharsets.US_ASCII), 400);
+        assertEquals("[FileParser]: 'request' is too short for the 2000000000 stages of its header.\n", message);
+    }
+
+    @Test
+    void rejectsOversizedBodies() throws IOException {
+        String message = post("", new byte[PlanningServer.MAX_BODY_BYTES + 1], 413);
+        assertTrue(message.startsWith("The tour data is larger than"), message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Plans of parts of a shared route compared with ExactSolver on the sliced distances
+ */
+class SharedRouteTest {
+
+    // the plan of a part of the route: ascending overnights whose longest day is the maximum
+    private static void assertValidPlan(SharedRoute route, int[] plan, int fromStation, int toStation, int days,
+                                        long longestDailyTrack) {
+        assertEquals(fromStation, plan[0]);
+        assertEquals(toStation, plan[days]);
+        long longest = 0;
+        for (int day = 1; day <= days; day++) {
+            if (plan[day] <= plan[day - 1])
+                throw new AssertionError(String.format("Day %d ends at %d, but begins at %d.", day, plan[day], plan[day - 1]));
+            longest = Math.max(longest, route.getDistance(plan[day - 1], plan[day]));
+        }
+        assertEquals(longestDailyTrack, longest);
+    }
+
+    // the optimum of the part by ExactSolver
+    private static long optimum(int[] distances, int fromStation, int toStation, int days) {
+        return ExactSolver.findLongestDailyTrack(
+                new ArrayPrefixSums(Arrays.copyOfRange(distances, fromStation, toStation)), days);
+    }
+
+    @Test
+    void plansPartsLikeTheExactSolver() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 50; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(1000));
+            SharedRoute route = new SharedRoute(distances);
+            int[] plan = new int[distances.length + 1];
+            for (int query = 0; query < 40; query++) {
+                int fromStation = random.nextInt(distances.length);
+                int toStation = fromStation + 1 + random.nextInt(distances.length - fromStation);
+                int days = 1 + random.nextInt(toStation - fromStation);
+
+                long longestDailyTrack = route.plan(fromStation, toStation, days, plan);
+                assertEquals(optimum(distances, fromStation, toStation, days), longestDailyTrack);
+                assertEquals(longestDailyTrack, route.findLongestDailyTrack(fromStation, toStation, days));
+                assertValidPlan(route, plan, fromStation, toStation, days, longestDailyTrack);
+            }
+        }
+    }
+
+    @Test
+    void countsTheDaysOfTheGreedyWalk() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            SharedRoute route = new SharedRoute(distances);
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            for (long maxDistance = 1; maxDistance <= overnights.get(distances.length); maxDistance += 1 + random.nextInt(20)) {
+                int expected = (maxDistance < overnights.getLongestStage()) ? distances.length + 1
+                        : ExactSolver.countDays(overnights, maxDistance, distances.length);
+                assertEquals(expected, route.countDays(0, distances.length, maxDistance, distances.length));
+            }
+        }
+    }
+
+    @Test
+    void concurrentQueriesGiveTheSamePlans() throws InterruptedException, ExecutionException {
+        Random random = new Random(17);
+        int[] distances = ExactSolverTest.randomDistances(random, 20000);
+        SharedRoute route = new SharedRoute(distances);
+        int[][] queries = new int[200][];
+        for (int query = 0; query < queries.length; query++) {
+            int fromStation = random.nextInt(distances.length);
+            int toStation = fromStation + 1 + random.nextInt(distances.length - fromStation);
+            queries[query] = new int[] {fromStation, toStation, 1 + random.nextInt(toStation - fromStation)};
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int[] query : queries) {
+                results.add(executor.submit(() -> route.plan(query[0], query[1], query[2], new int[query[2] + 1])));
+            }
+            for (int query = 0; query < queries.length; query++) {
+                assertEquals(route.findLongestDailyTrack(queries[query][0], queries[query][1], queries[query][2]),
+                        results.get(query).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        SharedRoute route = new SharedRoute(new int[] {11, 16, 5, 5, 12, 10});
+        assertEquals(26, route.plan(0, 6, 3, new int[4]));
+        assertThrows(IllegalArgumentException.class, () -> route.plan(0, 6, 3, new int[3]));
+        assertThrows(IllegalArgumentException.class, () -> route.findLongestDailyTrack(-1, 6, 3));
+        assertThrows(IllegalArgumentException.class, () -> route.findLongestDailyTrack(0, 7, 3));
+        assertThrows(IllegalArgumentException.class, () -> route.findLongestDailyTrack(4, 4, 1));
+        assertThrows(IllegalArgumentException.class, () -> route.findLongestDailyTrack(2, 4, 3));
+        assertThrows(IllegalArgumentException.class, () -> route.findLongestDailyTrack(2, 4, 0));
+    }
+}
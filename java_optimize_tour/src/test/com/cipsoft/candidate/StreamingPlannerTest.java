@@ -0,0 +1,119 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The days planned while the stages arrive, compared with the greedy walk of ExactSolver
+ */
+class StreamingPlannerTest {
+
+    // the days reported by a planner: day, fromStation, toStation, distance
+    private static final class Days implements StreamingPlanner.DayListener {
+        final List<long[]> days = new ArrayList<>();
+
+        @Override
+        public void dayPlanned(long day, long fromStation, long toStation, long distance) {
+            days.add(new long[] {day, fromStation, toStation, distance});
+        }
+    }
+
+    private static ReadableByteChannel channel(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // the reported days follow each other and match the prefix sums
+    private static void assertDays(Days days, PrefixSums overnights, long maxDistance, long neededDays) {
+        assertEquals(neededDays, days.days.size());
+        long station = 0;
+        for (int i = 0; i < days.days.size(); i++) {
+            long[] day = days.days.get(i);
+            assertEquals(i + 1, day[0]);
+            assertEquals(station, day[1]);
+            assertEquals(overnights.get((int) day[2]) - overnights.get((int) day[1]), day[3]);
+            assertTrue(day[3] <= maxDistance, "day " + day[0]);
+            station = day[2];
+        }
+        assertEquals(overnights.size() - 1, station);
+    }
+
+    @Test
+    void needsTheDaysOfTheGreedyWalk() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 300; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(500));
+            PrefixSums overnights = new ArrayPrefixSums(distances);
+            long maxDistance = overnights.getLongestStage() + random.nextInt(100);
+
+            Days days = new Days();
+            StreamingPlanner planner = new StreamingPlanner(maxDistance, days);
+            for (int distance : distances) {
+                planner.addStage(distance);
+            }
+            long neededDays = planner.finish();
+            assertEquals(ExactSolver.countDays(overnights, maxDistance, distances.length), neededDays);
+            assertDays(days, overnights, maxDistance, neededDays);
+            assertEquals(distances.length, planner.getStages());
+        }
+    }
+
+    @Test
+    void readsStagesWithAndWithoutHeader() throws IOException {
+        Random random = new Random(42);
+        // more than the 64 KB buffer of the planner; no stage is longer than 199 km
+        int[] distances = ExactSolverTest.randomDistances(random, 40000);
+        PrefixSums overnights = new ArrayPrefixSums(distances);
+        long maxDistance = 250;
+        StringBuilder stages = new StringBuilder();
+        for (int distance : distances) {
+            stages.append(random.nextBoolean() ? "\n" : " \r\n\t").append(distance);
+        }
+        long neededDays = ExactSolver.countDays(overnights, maxDistance, distances.length);
+
+        Days withHeader = new Days();
+        StreamingPlanner planner = new StreamingPlanner(maxDistance, withHeader);
+        assertEquals(neededDays, planner.plan(channel(distances.length + "\n7" + stages + "\n"), true, "tour"));
+        assertDays(withHeader, overnights, maxDistance, neededDays);
+
+        Days withoutHeader = new Days();
+        planner = new StreamingPlanner(maxDistance, withoutHeader);
+        assertEquals(neededDays, planner.plan(channel(stages.toString()), false, "tour"));
+        assertDays(withoutHeader, overnights, maxDistance, neededDays);
+    }
+
+    @Test
+    void emptyStreamNeedsNoDays() throws IOException {
+        Days days = new Days();
+        assertEquals(0, new StreamingPlanner(10, days).plan(channel(" \n"), false, "stdin"));
+        assertEquals(0, days.days.size());
+    }
+
+    @Test
+    void rejectsInvalidStages() {
+        String[][] cases = {
+                {"3\n2\n1\n2", "'tour': The header announces 3 stages, but 2 were read."},
+                {"2\n2\n1\n2\n3", "'tour' (line 5): More than the 2 stages of the header."},
+                {"3\n2\n1\nx\n3", "Failed reading number in 'tour' line 4."},
+                {"3\n2\n1\n0\n3", "'tour' (line 4): Stage 2: Distance has to be >= 1!"},
+                {"3\n2\n1\n11\n3", "'tour' (line 4): Stage 2: 11 km is longer than the maximum of 10 km."},
+                {"0\n2\n", "Failed reading number in 'tour' line 1."},
+                {"3", "Failed reading number in 'tour' line 1."},
+        };
+        for (String[] invalid : cases) {
+            IOException e = assertThrows(IOException.class,
+                    () -> new StreamingPlanner(10, new Days()).plan(channel(invalid[0]), true, "tour"), invalid[0]);
+            assertEquals(invalid[1], e.getMessage(), invalid[0]);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The Fenwick tree of FenwickPrefixSums and the repair of edited tours by TourEditor
+ */
+class TourEditorTest {
+
+    @Test
+    void fenwickTreeFollowsTheEditedDistances() {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            FenwickPrefixSums fenwick = new FenwickPrefixSums(distances);
+            for (int edit = 0; edit < 50; edit++) {
+                int stage = 1 + random.nextInt(distances.length);
+                distances[stage - 1] = 1 + random.nextInt(1000);
+                fenwick.setStageDistance(stage, distances[stage - 1]);
+
+                PrefixSums expected = new ArrayPrefixSums(distances);
+                assertEquals(expected.size(), fenwick.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i), fenwick.get(i));
+                }
+                assertEquals(distances[stage - 1], fenwick.getStageDistance(stage));
+                assertEquals(expected.getLongestStage(), fenwick.getLongestStage());
+            }
+        }
+    }
+
+    @Test
+    void repairedTourMatchesTheEditedDistances() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 100; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(500));
+            int days = 1 + random.nextInt(distances.length / 2);
+            TourEditor editor = new TourEditor(distances.clone(), days);
+            for (int edit = 0; edit < 20; edit++) {
+                int[] previousOvernights = new int[days + 1];
+                for (int day = 0; day <= days; day++) {
+                    previousOvernights[day] = editor.trackPlan.getOvernight(day);
+                }
+                int changes = 1 + random.nextInt(3);
+                int[] stages = new int[changes];
+                int[] newDistances = new int[changes];
+                for (int i = 0; i < changes; i++) {
+                    stages[i] = 1 + random.nextInt(distances.length);
+                    newDistances[i] = 1 + random.nextInt(random.nextBoolean() ? 20 : 200);
+                    distances[stages[i] - 1] = newDistances[i];
+                }
+                editor.setStageDistances(stages, newDistances);
+
+                PrefixSums overnights = new ArrayPrefixSums(distances);
+                ExactSolverTest.assertValidPlan(editor.trackPlan, overnights);
+                // the repair is a heuristic: not better than the optimum, not worse than keeping the overnights
+                long unrepaired = 0;
+                for (int day = 1; day <= days; day++) {
+                    unrepaired = Math.max(unrepaired,
+                            overnights.get(previousOvernights[day]) - overnights.get(previousOvernights[day - 1]));
+                }
+                long repaired = editor.trackPlan.getLongestDailyTrack();
+                assertTrue(repaired >= ExactSolver.findLongestDailyTrack(overnights, days));
+                assertTrue(repaired <= unrepaired, repaired + " km instead of " + unrepaired + " km");
+            }
+        }
+    }
+
+    @Test
+    void repairsALongerStageLocally() {
+        // 1000 stages of 10 km in 100 days of 100 km each
+        int[] distances = new int[1000];
+        Arrays.fill(distances, 10);
+        TourEditor editor = new TourEditor(distances, 100);
+        assertEquals(100, editor.trackPlan.getLongestDailyTrack());
+
+        // day 51 walking the longer stage would be 290 km long; the neighbouring days take over its other stages
+        editor.setStageDistance(505, 200);
+        distances[504] = 200;
+        ExactSolverTest.assertValidPlan(editor.trackPlan, new ArrayPrefixSums(distances));
+        assertEquals(200, editor.trackPlan.getLongestDailyTrack());
+        assertEquals(200, editor.getStageDistance(505));
+    }
+
+    @Test
+    void rejectsInvalidEdits() {
+        TourEditor editor = new TourEditor(new int[] {11, 16, 5, 5, 12, 10}, 3);
+        assertThrows(IllegalArgumentException.class, () -> editor.setStageDistance(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> editor.setStageDistance(7, 5));
+        assertThrows(IllegalArgumentException.class, () -> editor.setStageDistance(1, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> editor.setStageDistances(new int[] {1, 2}, new int[] {5}));
+        // a rejected edit leaves the tour unchanged
+        assertEquals(11, editor.getStageDistance(1));
+        assertEquals(26, editor.trackPlan.getLongestDailyTrack());
+    }
+}
@@ -0,0 +1,176 @@
+package com.cipsoft.candidate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Commit and undo of the changed days and the first guess, for both TrackPlan implementations
+ */
+class TrackPlanTest {
+
+    private static final BiFunction<PrefixSums, Integer, TrackPlan> ARRAY = ArrayTrackPlan::new;
+    private static final BiFunction<PrefixSums, Integer, TrackPlan> LINKED = LinkedTrackPlan::new;
+
+    private static int[] overnights(TrackPlan trackPlan) {
+        int[] overnights = new int[trackPlan.days + 1];
+        for (int day = 0; day <= trackPlan.days; day++) {
+            overnights[day] = trackPlan.getOvernight(day);
+        }
+        return overnights;
+    }
+
+    private static long[] distances(TrackPlan trackPlan) {
+        long[] distances = new long[trackPlan.days + 1];
+        for (int day = 1; day <= trackPlan.days; day++) {
+            distances[day] = trackPlan.getDistance(day);
+        }
+        return distances;
+    }
+
+    // shifts random days like HeuristicOptimizer does
+    private static void shiftRandomly(TrackPlan trackPlan, Random random, int shifts) {
+        for (int i = 0; i < shifts; i++) {
+            int day = 1 + random.nextInt(trackPlan.days);
+            if (random.nextBoolean())
+                trackPlan.trackEndEarlier(day);
+            else
+                trackPlan.trackBeginLater(day);
+        }
+    }
+
+    // the cached distances and the longest day match the overnights;
+    // a first guess may contain days without a stage, which the optimizer removes
+    private static void assertConsistent(TrackPlan trackPlan, PrefixSums availableOvernights) {
+        long longest = 0;
+        for (int day = 1; day <= trackPlan.days; day++) {
+            long distance = availableOvernights.get(trackPlan.getOvernight(day))
+                    - availableOvernights.get(trackPlan.getOvernight(day - 1));
+            assertEquals(distance, trackPlan.getDistance(day), "day " + day);
+            longest = Math.max(longest, distance);
+        }
+        assertEquals(longest, trackPlan.getLongestDailyTrack());
+        assertEquals(trackPlan.getDistance(trackPlan.getLongestDay()), longest);
+    }
+
+    private static void assertState(int[] overnights, TrackPlan trackPlan, PrefixSums availableOvernights) {
+        assertArrayEquals(overnights, overnights(trackPlan));
+        assertConsistent(trackPlan, availableOvernights);
+    }
+
+    @Test
+    void undoRestoresTheLastCommit() {
+        undoRestoresTheLastCommit(ARRAY);
+        undoRestoresTheLastCommit(LINKED);
+    }
+
+    private void undoRestoresTheLastCommit(BiFunction<PrefixSums, Integer, TrackPlan> plans) {
+        Random random = new Random(4711);
+        for (int tour = 0; tour < 200; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 2 + random.nextInt(200));
+            PrefixSums availableOvernights = new ArrayPrefixSums(distances);
+            TrackPlan trackPlan = plans.apply(availableOvernights, 1 + random.nextInt(distances.length / 2 + 1));
+
+            for (int round = 0; round < 10; round++) {
+                int[] committed = overnights(trackPlan);
+                shiftRandomly(trackPlan, random, 1 + random.nextInt(20));
+                if (random.nextBoolean()) {
+                    trackPlan.undoShift();
+                    assertState(committed, trackPlan, availableOvernights);
+                } else {
+                    int[] shifted = overnights(trackPlan);
+                    trackPlan.commitShift();
+                    shiftRandomly(trackPlan, random, 1 + random.nextInt(20));
+                    trackPlan.undoShift();
+                    assertState(shifted, trackPlan, availableOvernights);
+                }
+            }
+        }
+    }
+
+    @Test
+    void undoAfterSubTourCommitKeepsTheSubTour() {
+        undoAfterSubTourCommitKeepsTheSubTour(ARRAY);
+        undoAfterSubTourCommitKeepsTheSubTour(LINKED);
+    }
+
+    private void undoAfterSubTourCommitKeepsTheSubTour(BiFunction<PrefixSums, Integer, TrackPlan> plans) {
+        int[] distances = new int[100];
+        Arrays.fill(distances, 10);
+        PrefixSums availableOvernights = new ArrayPrefixSums(distances);
+        TrackPlan trackPlan = plans.apply(availableOvernights, 25);
+        int[] committed = overnights(trackPlan);
+        assertEquals(8, committed[2]);
+
+        // changes the days 2, 3 and 20, 21
+        trackPlan.setOvernight(2, 9);
+        trackPlan.setOvernight(20, 78);
+        int[] expected = committed.clone();
+        expected[2] = 9;
+        trackPlan.commitShift(1, 10);
+        trackPlan.undoShift();
+        assertState(expected, trackPlan, availableOvernights);
+        assertEquals(50, trackPlan.getLongestDailyTrack());
+
+        // the sub tour commit left nothing to undo
+        trackPlan.undoShift();
+        assertState(expected, trackPlan, availableOvernights);
+    }
+
+    @Test
+    void undoOfASubTourRestoresOnlyTheSubTour() {
+        undoOfASubTourRestoresOnlyTheSubTour(ARRAY);
+        undoOfASubTourRestoresOnlyTheSubTour(LINKED);
+    }
+
+    private void undoOfASubTourRestoresOnlyTheSubTour(BiFunction<PrefixSums, Integer, TrackPlan> plans) {
+        int[] distances = new int[100];
+        Arrays.fill(distances, 10);
+        PrefixSums availableOvernights = new ArrayPrefixSums(distances);
+        TrackPlan trackPlan = plans.apply(availableOvernights, 25);
+        int[] committed = overnights(trackPlan);
+
+        trackPlan.setOvernight(2, 9);
+        trackPlan.setOvernight(20, 78);
+        trackPlan.undoShift(15, 25);
+        int[] expected = committed.clone();
+        expected[2] = 9;
+        assertState(expected, trackPlan, availableOvernights);
+
+        // the rest of the changed days are undone as well
+        trackPlan.undoShift();
+        assertState(committed, trackPlan, availableOvernights);
+    }
+
+    @Test
+    void parallelFirstGuessEqualsTheSequentialOne() {
+        Random random = new Random(42);
+        for (int tour = 0; tour < 2000; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            int days = 1 + random.nextInt(distances.length);
+            TrackPlan trackPlan = new ArrayTrackPlan(distances, days);
+            assertArrayEquals(trackPlan.firstGuess(), trackPlan.parallelFirstGuess());
+        }
+    }
+
+    @Test
+    void bothPlansGuessTheSameOvernights() {
+        Random random = new Random(17);
+        for (int tour = 0; tour < 200; tour++) {
+            int[] distances = ExactSolverTest.randomDistances(random, 1 + random.nextInt(300));
+            PrefixSums availableOvernights = new ArrayPrefixSums(distances);
+            int days = 1 + random.nextInt(distances.length);
+            TrackPlan array = ARRAY.apply(availableOvernights, days);
+            TrackPlan linked = LINKED.apply(availableOvernights, days);
+            assertArrayEquals(overnights(array), overnights(linked));
+            assertArrayEquals(distances(array), distances(linked));
+            assertConsistent(array, availableOvernights);
+            assertEquals(0, array.getOvernight(0));
+            assertEquals(distances.length, array.getOvernight(days));
+        }
+    }
+}